@@ -0,0 +1,171 @@
+package com.journeymate.cache;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.journeymate.dto.CursorPage;
+import com.journeymate.dto.FeedCacheStats;
+import com.journeymate.dto.TripPostDTO;
+import com.journeymate.event.TripPostEvent;
+import com.journeymate.utils.KeysetCursor;
+
+/**
+ * Bounded LRU of assembled public feed responses. Every entry remembers the
+ * createdDate window it covers, so a write only drops the entries whose window
+ * contains the changed post instead of the whole cache.
+ */
+@Component
+public class TripFeedCache {
+
+    private static final String ALL_KEY = "all";
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // bumped on every invalidation so a load that raced with a write is not cached
+    private long generation;
+    // generations restart with the process, so feed ETags also carry when it started
+    private final long epoch = System.currentTimeMillis();
+    private LocalDate day = LocalDate.now();
+
+    public TripFeedCache(@Value("${app.feed-cache.max-entries:256}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > TripFeedCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<TripPostDTO> getAll(Supplier<List<TripPostDTO>> loader) {
+        return (List<TripPostDTO>) get(ALL_KEY, () -> {
+            List<TripPostDTO> data = loader.get();
+            return new Entry(data, null, null);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public CursorPage<TripPostDTO> getPage(String cursor, int size, Supplier<CursorPage<TripPostDTO>> loader) {
+        boolean head = cursor == null || cursor.isBlank();
+        LocalDateTime upper = head ? null : KeysetCursor.decode(cursor).getTimestamp();
+        return (CursorPage<TripPostDTO>) get("page:" + (head ? "" : cursor) + ":" + size, () -> {
+            CursorPage<TripPostDTO> page = loader.get();
+            List<TripPostDTO> items = page.getItems();
+            // the last page reaches back to the oldest post
+            LocalDateTime lower = page.getNextCursor() == null || items.isEmpty() ? null
+                    : items.get(items.size() - 1).getCreatedDate();
+            return new Entry(page, lower, upper);
+        });
+    }
+
+    @TransactionalEventListener
+    public void onTripPostEvent(TripPostEvent event) {
+        invalidate(event.getCreatedDate());
+    }
+
+    public synchronized void invalidate(LocalDateTime createdDate) {
+        generation++;
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.covers(createdDate));
+        invalidations.addAndGet(before - entries.size());
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    // posts drop out of the feed once post_expire_date is behind us
+    @Scheduled(cron = "${app.feed-cache.rollover-cron:0 0 0 * * *}")
+    public synchronized void rollover() {
+        day = LocalDate.now();
+        invalidateAll();
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Collection-level ETag for the public feed. Any write that could change a feed
+     * response bumps the generation, and with it the tag.
+     */
+    public synchronized String getETag() {
+        if (!day.equals(LocalDate.now())) {
+            rollover();
+        }
+        return "W/\"" + Long.toHexString(epoch) + "-" + Long.toHexString(generation) + "\"";
+    }
+
+    public synchronized FeedCacheStats getStats() {
+        return new FeedCacheStats(hits.get(), misses.get(), evictions.get(), invalidations.get(),
+                entries.size(), maxEntries);
+    }
+
+    private Object get(String key, Supplier<Entry> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            if (!day.equals(LocalDate.now())) {
+                rollover();
+            }
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            misses.incrementAndGet();
+            loadGeneration = generation;
+        }
+
+        Entry loaded = loader.get();
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                entries.put(key, loaded);
+            }
+        }
+        return loaded.value;
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final LocalDateTime lower;
+        private final LocalDateTime upper;
+
+        Entry(Object value, LocalDateTime lower, LocalDateTime upper) {
+            this.value = value;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        boolean covers(LocalDateTime createdDate) {
+            if (createdDate == null) {
+                return true;
+            }
+            return (lower == null || !createdDate.isBefore(lower)) && (upper == null || !createdDate.isAfter(upper));
+        }
+    }
+}
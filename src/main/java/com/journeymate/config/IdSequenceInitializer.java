@@ -0,0 +1,50 @@
+package com.journeymate.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * trip_posts and trip_images used to take AUTO_INCREMENT ids. MySQL has no sequences,
+ * so Hibernate emulates them with a one-row table per sequence; this makes sure those
+ * tables exist (ddl-auto is none in prod) and start past the ids already in use,
+ * before anything can insert.
+ */
+@Component
+public class IdSequenceInitializer {
+
+    // must match allocationSize on the entities' @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // depending on the EntityManagerFactory means schema update has already run
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        initialize("trip_posts_seq", "trip_posts");
+        initialize("trip_images_seq", "trip_images");
+    }
+
+    private void initialize(String sequenceTable, String table) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + sequenceTable + " (next_val BIGINT)");
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        // a pooled block handed out from next_val may start up to ALLOCATION_SIZE below it
+        long floor = (maxId == null ? 0 : maxId) + ALLOCATION_SIZE + 1;
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + sequenceTable, Integer.class);
+        if (rows == null || rows == 0) {
+            jdbcTemplate.update("INSERT INTO " + sequenceTable + " (next_val) VALUES (?)", floor);
+        } else if (jdbcTemplate.update("UPDATE " + sequenceTable + " SET next_val = ? WHERE next_val < ?", floor, floor) > 0) {
+            logger.info("Moved {} past the existing {} ids to {}", sequenceTable, table, floor);
+        }
+    }
+}
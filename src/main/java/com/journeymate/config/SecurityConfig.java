@@ -37,7 +37,16 @@ public class SecurityConfig {
     		"/swagger-ui/**",
     		"/swagger-ui.html",
     		"/users/getAllTrips",
+    		"/users/trips",
+    		"/users/trips/overlapping",
+    		"/users/trips/trending",
+    		"/users/trips/{uid}/similar",
+    		"/users/destinations/suggest",
+    		"/users/searchTrips",
+    		"/users/filterTrips",
     		"/users/trip/{uid}",
+    		// browsers cannot send headers on the handshake, STOMP CONNECT carries the token instead
+    		"/ws/**",
     };
 
     @Bean
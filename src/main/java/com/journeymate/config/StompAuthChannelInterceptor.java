@@ -0,0 +1,61 @@
+package com.journeymate.config;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Authenticates STOMP sessions with the same JWT as the REST API, sent as the
+ * Authorization header of the CONNECT frame. Clients only receive, so the one thing
+ * a session may do afterwards is subscribe to its own user queues.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private final JwtTokenProvider tokenProvider;
+    private final CustomUserDetailsService userDetailsService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        switch (accessor.getCommand()) {
+            case CONNECT -> accessor.setUser(authenticate(accessor.getFirstNativeHeader("Authorization")));
+            case SUBSCRIBE -> {
+                String destination = accessor.getDestination();
+                if (accessor.getUser() == null || destination == null || !destination.startsWith("/user/queue/")) {
+                    throw new AccessDeniedException("Subscription not allowed");
+                }
+            }
+            case SEND -> throw new AccessDeniedException("Sending is not supported, use POST /api/messages");
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    private UsernamePasswordAuthenticationToken authenticate(String bearerToken) {
+        if (!StringUtils.hasText(bearerToken) || !bearerToken.startsWith("Bearer ")) {
+            throw new BadCredentialsException("Missing token");
+        }
+        String jwt = bearerToken.substring(7);
+        if (!tokenProvider.validateToken(jwt)) {
+            throw new BadCredentialsException("Invalid token");
+        }
+        UserDetails userDetails = userDetailsService.loadUserByUsername(tokenProvider.getUsernameFromToken(jwt));
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+}
@@ -0,0 +1,69 @@
+package com.journeymate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * STOMP over WebSocket at /ws for pushing new messages to their recipients. The
+ * in-memory simple broker keeps the registry of connected users and their sessions;
+ * a recipient subscribes to /user/queue/messages.
+ *
+ * Outbound traffic is bounded at two points: a fixed pool with a bounded queue feeds
+ * all sessions, and each session buffers at most send-buffer-size-kb for a client that
+ * is not reading. A session that stays over its limit for send-time-limit-ms is
+ * closed; the client reconnects and catches up through the thread endpoint.
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+
+    @Value("${app.ws.outbound-threads:4}")
+    private int outboundThreads;
+
+    @Value("${app.ws.outbound-queue:1000}")
+    private int outboundQueue;
+
+    @Value("${app.ws.send-buffer-size-kb:256}")
+    private int sendBufferSizeKb;
+
+    @Value("${app.ws.send-time-limit-ms:10000}")
+    private int sendTimeLimitMillis;
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws").setAllowedOriginPatterns("*");
+    }
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/queue");
+        registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthChannelInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(outboundThreads).maxPoolSize(outboundThreads).queueCapacity(outboundQueue);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferSizeKb * 1024).setSendTimeLimit(sendTimeLimitMillis);
+    }
+}
@@ -0,0 +1,43 @@
+package com.journeymate.controller;
+
+import java.io.IOException;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.journeymate.service.ImageDeliveryService;
+import com.journeymate.service.ImageService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Images", description = "Uploaded image delivery APIs")
+public class ImageController {
+
+	private static final String IMAGE_PATTERN = ImageService.IMAGE_URL_PREFIX + "**";
+
+	private final ImageDeliveryService imageDeliveryService;
+
+	private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+	@Operation(summary = "Get image", description = "Streams an uploaded image (GET or HEAD). Responses are immutable and support conditional and single range requests", responses = {
+			@ApiResponse(responseCode = "200", description = "Image found"),
+			@ApiResponse(responseCode = "206", description = "Requested range of the image"),
+			@ApiResponse(responseCode = "304", description = "Image not modified"),
+			@ApiResponse(responseCode = "404", description = "Image not found"),
+			@ApiResponse(responseCode = "416", description = "Requested range not satisfiable") })
+	@GetMapping(IMAGE_PATTERN)
+	public void getImage(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+		String key = pathMatcher.extractPathWithinPattern(IMAGE_PATTERN, path);
+		imageDeliveryService.serve(key, request, response);
+	}
+}
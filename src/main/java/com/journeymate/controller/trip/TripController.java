@@ -1,24 +1,51 @@
 package com.journeymate.controller.trip;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.Callable;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.journeymate.cache.TripFeedCache;
+import com.journeymate.dto.CursorPage;
+import com.journeymate.dto.FeedCacheStats;
+import com.journeymate.dto.ImageGcStats;
+import com.journeymate.dto.TripFilterRequest;
+import com.journeymate.dto.TripFilterResult;
+import com.journeymate.dto.TripImportReport;
 import com.journeymate.dto.TripPostDTO;
+import com.journeymate.dto.TripPostVersion;
 import com.journeymate.dto.TripRequestDTO;
 import com.journeymate.repository.trip.TripPostRepository;
 import com.journeymate.service.ContextService;
+import com.journeymate.service.OrphanImageSweeper;
+import com.journeymate.service.TripArchiveService;
+import com.journeymate.service.TripExportService;
+import com.journeymate.service.TripImportService;
 import com.journeymate.service.TripService;
 import com.journeymate.utils.Message;
 
@@ -28,6 +55,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -36,12 +64,24 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 @SecurityRequirement(name = "bearerAuth")
 public class TripController {
+
+    private static final String EXPORT_TIMEOUT_INTERCEPTOR = TripController.class.getName() + ".exportTimeout";
     
     private final TripService tripService;
     
     private final TripPostRepository tripPostRepository;
     
     private final ContextService contextService;
+    
+    private final TripFeedCache tripFeedCache;
+    
+    private final TripExportService tripExportService;
+    
+    private final TripImportService tripImportService;
+    
+    private final TripArchiveService tripArchiveService;
+    
+    private final OrphanImageSweeper orphanImageSweeper;
 
     @Operation(summary = "Create a new trip post", description = "Creates a new trip post with images",
         responses = {@ApiResponse(responseCode = "200", description = "Trip post created successfully",
@@ -72,19 +112,116 @@ public class TripController {
     
     @Operation(summary = "Get all trip posts", description = "Retrieves a list of all trip posts",
         responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved trip posts",
-                    content = @Content(schema = @Schema(implementation = TripPostDTO.class)))})
+                    content = @Content(schema = @Schema(implementation = TripPostDTO.class))),
+            @ApiResponse(responseCode = "304", description = "Feed not modified since the ETag in If-None-Match")})
     @GetMapping("getAllTrips")
-    public ResponseEntity<List<TripPostDTO>> getAllTripPosts() {
-        return ResponseEntity.ok(tripService.getAllTripPosts());
+    public ResponseEntity<List<TripPostDTO>> getAllTripPosts(WebRequest request) {
+        String etag = tripService.getFeedETag();
+        if (request.checkNotModified(etag)) {
+            // 304 with the ETag is already on the response
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag).body(tripService.getAllTripPosts());
+    }
+    
+    @Operation(summary = "Get trip posts page", description = "Retrieves live trip posts newest first, one page at a time. "
+    		+ "Pass the returned nextCursor to fetch the following page",
+        responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved trip posts"),
+            @ApiResponse(responseCode = "304", description = "Feed not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor")})
+    @GetMapping("trips")
+    public ResponseEntity<CursorPage<TripPostDTO>> getTripPostsPage(@RequestParam(required = false) String cursor,
+    		@RequestParam(required = false) Integer size, WebRequest request) {
+        String etag = tripService.getFeedETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag)
+        		.body(tripService.getTripPostsPage(cursor, size));
     }
     
-    @Operation(summary = "Get trip post by ID", description = "Retrieves a specific trip post by its ID",
+    @Operation(summary = "Get trending trip posts", description = "Live trip posts ranked by recent saves, join requests and ratings, "
+    		+ "with older activity counting less. Scores are refreshed every few minutes",
+        responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved trending trip posts")})
+    @GetMapping("trips/trending")
+    public ResponseEntity<List<TripPostDTO>> getTrendingTripPosts(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(tripService.getTrendingTripPosts(limit));
+    }
+    
+    @Operation(summary = "Get trip posts I can join", description = "Live trip posts whose age and gender restrictions admit the current user, "
+    		+ "newest first. Pass nextCursor from the previous page to continue",
+        responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved eligible trip posts"),
+        		@ApiResponse(responseCode = "400", description = "Invalid cursor")})
+    @GetMapping("trips/eligible")
+    public ResponseEntity<CursorPage<TripPostDTO>> getEligibleTripPosts(@RequestParam(required = false) String cursor,
+    		@RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(tripService.getEligibleTripPosts(cursor, size));
+    }
+    
+    @Operation(summary = "Suggest destinations", description = "Autocompletes a destination prefix, most posted destinations first",
+        responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved destination suggestions")})
+    @GetMapping("destinations/suggest")
+    public ResponseEntity<List<String>> suggestDestinations(@RequestParam String q,
+    		@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(tripService.suggestDestinations(q, limit));
+    }
+    
+    @Operation(summary = "Find trips overlapping dates", description = "Returns a page of uids of live trips whose travel dates share at least one day with [from, to], "
+    		+ "earliest trip start first. Pass nextCursor back as cursor to get the next page",
+        responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved overlapping trips"),
+            @ApiResponse(responseCode = "400", description = "from is after to, or invalid cursor")})
+    @GetMapping("trips/overlapping")
+    public ResponseEntity<CursorPage<String>> findTripsOverlapping(
+    		@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+    		@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+    		@RequestParam(required = false) String cursor,
+    		@RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(tripService.findTripsOverlapping(from, to, cursor, size));
+    }
+    
+    @Operation(summary = "Find similar trips", description = "Returns uids of live trips closest to the given one by destination, price, "
+    		+ "trip dates, duration, age range and gender preference, most similar first",
+        responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved similar trips"),
+            @ApiResponse(responseCode = "404", description = "Trip post not found")})
+    @GetMapping("trips/{uid}/similar")
+    public ResponseEntity<List<String>> findSimilarTrips(@PathVariable String uid,
+    		@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(tripService.findSimilarTrips(uid, limit));
+    }
+    
+    @Operation(summary = "Search trip posts", description = "Full-text search over title, description and destination, best matches first",
+        responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved matching trip posts")})
+    @GetMapping("searchTrips")
+    public ResponseEntity<List<TripPostDTO>> searchTripPosts(@RequestParam String q,
+    		@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(tripService.searchTripPosts(q, limit));
+    }
+    
+    @Operation(summary = "Filter trip posts", description = "Filters live trip posts by price, gender, person type, age range, trip dates and transportation. "
+    		+ "The first page also carries the total and facet counts for the filtered set",
+        responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved filtered trip posts")})
+    @GetMapping("filterTrips")
+    public ResponseEntity<TripFilterResult> filterTripPosts(@ModelAttribute TripFilterRequest filter,
+    		@RequestParam(required = false) String cursor,
+    		@RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(tripService.filterTripPosts(filter, cursor, size));
+    }
+    
+    @Operation(summary = "Get trip post by ID", description = "Retrieves a specific trip post by its ID. "
+    		+ "Supports If-None-Match / If-Modified-Since",
         responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved trip post",
                     content = @Content(schema = @Schema(implementation = TripPostDTO.class))),
+            @ApiResponse(responseCode = "304", description = "Trip post not modified"),
             @ApiResponse(responseCode = "404", description = "Trip post not found")})
     @GetMapping("trip/{uid}")
-    public ResponseEntity<TripPostDTO> getTripPostById(@PathVariable String uid) {
-        return ResponseEntity.ok(tripService.getTripPostByUid(uid));
+    public ResponseEntity<TripPostDTO> getTripPostById(@PathVariable String uid, WebRequest request) {
+        // read before the post so a concurrent write can only make the tag older than the body, never newer
+        TripPostVersion version = tripService.getTripPostVersion(uid);
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(version.getETag())
+        		.lastModified(version.getLastModified()).body(tripService.getTripPostByUid(uid));
     }
     
     @Operation(summary = "Get trip posts by user ID", description = "Retrieves all trip posts created by a specific user",
@@ -96,6 +233,25 @@ public class TripController {
         return ResponseEntity.ok(tripService.getTripPostsByUser());
     }
     
+    @Operation(summary = "Get my archived trip posts", description = "Trip posts of the current user that were archived after expiring "
+    		+ "or being deleted, newest first. Pass nextCursor from the previous page to continue",
+        responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved archived trip posts"),
+        		@ApiResponse(responseCode = "400", description = "Invalid cursor")})
+    @GetMapping("trips/archived")
+    public ResponseEntity<CursorPage<TripPostDTO>> getArchivedTripPosts(@RequestParam(required = false) String cursor,
+    		@RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(tripArchiveService.getArchivedTripPostsByUser(cursor, size));
+    }
+    
+    @Operation(summary = "Get archived trip post", description = "Retrieves an archived trip post by its ID",
+        responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved archived trip post",
+                    content = @Content(schema = @Schema(implementation = TripPostDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Trip post not found")})
+    @GetMapping("trips/archived/{uid}")
+    public ResponseEntity<TripPostDTO> getArchivedTripPost(@PathVariable String uid) {
+        return ResponseEntity.ok(tripArchiveService.getArchivedTripPost(uid));
+    }
+    
     @Operation(summary = "Delete trip post", description = "Deletes an existing trip post",
         responses = {@ApiResponse(responseCode = "200", description = "Trip post deleted successfully"),
             @ApiResponse(responseCode = "403", description = "Access forbidden"),
@@ -106,4 +262,67 @@ public class TripController {
         tripService.deleteTripPost(uid);
         return new ResponseEntity<>(new Message("Trip Post deleted successfully"), HttpStatus.OK);
     }
-}
\ No newline at end of file
+    
+    @Operation(summary = "Export trip posts", description = "Streams every trip post ordered by id as NDJSON or CSV (Admin only). "
+    		+ "Pass the last id received as afterId to resume an interrupted export",
+        responses = {@ApiResponse(responseCode = "200", description = "Export stream"),
+            @ApiResponse(responseCode = "400", description = "Unsupported format"),
+            @ApiResponse(responseCode = "403", description = "Access forbidden")})
+    @GetMapping("trips/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportTripPosts(@RequestParam(defaultValue = TripExportService.FORMAT_NDJSON) String format,
+    		@RequestParam(required = false) Long afterId, HttpServletRequest request) {
+        String type = TripExportService.normalizeFormat(format);
+        long timeoutMillis = tripExportService.getTimeoutMillis();
+        // the body is streamed from an async callable, raise the timeout for this request only before it starts
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(EXPORT_TIMEOUT_INTERCEPTOR,
+        		new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                        ((AsyncWebRequest) webRequest).setTimeout(timeoutMillis);
+                    }
+                });
+        return ResponseEntity.ok()
+        		.contentType(TripExportService.FORMAT_CSV.equals(type) ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+        		.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"trips." + type + "\"")
+        		.body(tripExportService.export(type, afterId));
+    }
+    
+    @Operation(summary = "Bulk import trip posts", description = "Imports trip posts from an NDJSON body, one trip per line, owned by the calling admin. "
+    		+ "Returns per-chunk throughput and the lines that were rejected (Admin only)",
+        responses = {@ApiResponse(responseCode = "200", description = "Import report"),
+            @ApiResponse(responseCode = "403", description = "Access forbidden")})
+    @PostMapping(value = "trips/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TripImportReport> importTripPosts(InputStream body) throws IOException {
+        return ResponseEntity.ok(tripImportService.importNdjson(body));
+    }
+    
+    @Operation(summary = "Get feed cache statistics", description = "Hit, miss, eviction and invalidation counters of the public feed cache (Admin only)",
+        responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved cache statistics"),
+            @ApiResponse(responseCode = "403", description = "Access forbidden")})
+    @GetMapping("feed-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<FeedCacheStats> getFeedCacheStats() {
+        return ResponseEntity.ok(tripFeedCache.getStats());
+    }
+    
+    @Operation(summary = "Get orphan image sweep statistics", description = "Files scanned, orphans found and bytes reclaimed by the upload garbage collector (Admin only)",
+        responses = {@ApiResponse(responseCode = "200", description = "Successfully retrieved sweep statistics"),
+            @ApiResponse(responseCode = "403", description = "Access forbidden")})
+    @GetMapping("images/gc/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImageGcStats> getImageGcStats() {
+        return ResponseEntity.ok(orphanImageSweeper.getStats());
+    }
+    
+    @Operation(summary = "Run orphan image sweep", description = "Runs the upload garbage collector now; with dryRun it only reports what it would delete (Admin only)",
+        responses = {@ApiResponse(responseCode = "200", description = "Sweep finished"),
+            @ApiResponse(responseCode = "403", description = "Access forbidden"),
+            @ApiResponse(responseCode = "409", description = "A sweep is already running")})
+    @PostMapping("images/gc/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImageGcStats> runImageGc(@RequestParam(defaultValue = "true") boolean dryRun) {
+        return ResponseEntity.ok(orphanImageSweeper.sweep(dryRun));
+    }
+}
@@ -1,6 +1,7 @@
 package com.journeymate.controller.trip;
 
 import com.journeymate.dto.TripFeedbackDTO;
+import com.journeymate.service.RatingAggregateService;
 import com.journeymate.service.TripFeedbackService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -21,9 +22,12 @@ import java.util.List;
 public class TripFeedbackController {
     
     private final TripFeedbackService tripFeedbackService;
+    private final RatingAggregateService ratingAggregateService;
 
-    public TripFeedbackController(TripFeedbackService tripFeedbackService) {
+    public TripFeedbackController(TripFeedbackService tripFeedbackService,
+                                  RatingAggregateService ratingAggregateService) {
         this.tripFeedbackService = tripFeedbackService;
+        this.ratingAggregateService = ratingAggregateService;
     }
 
     @Operation(
@@ -144,4 +148,18 @@ public class TripFeedbackController {
         tripFeedbackService.deleteFeedback(id);
         return ResponseEntity.ok().build();
     }
+
+    @Operation(
+        summary = "Reconcile rating aggregates",
+        description = "Recomputes the stored rating sum and count of every trip post from its feedback (Admin only)",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Number of trip posts reconciled"),
+            @ApiResponse(responseCode = "403", description = "Access forbidden")
+        }
+    )
+    @PostMapping("/reconcile-ratings")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Integer> reconcileRatings() {
+        return ResponseEntity.ok(ratingAggregateService.reconcile());
+    }
 }
\ No newline at end of file
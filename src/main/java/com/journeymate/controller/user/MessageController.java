@@ -1,5 +1,6 @@
 package com.journeymate.controller.user;
 
+import com.journeymate.dto.CursorPage;
 import com.journeymate.dto.MessageDTO;
 import com.journeymate.service.MessageService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -28,7 +29,8 @@ public class MessageController {
 
     @Operation(
         summary = "Send a message",
-        description = "Creates a new message between users",
+        description = "Creates a new message between users. Recipients connected over STOMP at /ws receive it "
+                + "on /user/queue/messages as soon as it is stored",
         responses = {
             @ApiResponse(responseCode = "200", description = "Message sent successfully",
                     content = @Content(schema = @Schema(implementation = MessageDTO.class))),
@@ -102,7 +104,7 @@ public class MessageController {
 
     @Operation(
         summary = "Get messages between users",
-        description = "Retrieves all messages between two users",
+        description = "Retrieves all messages between two users in both directions, oldest first",
         responses = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved messages"),
             @ApiResponse(responseCode = "403", description = "Access forbidden")
@@ -116,6 +118,22 @@ public class MessageController {
         return ResponseEntity.ok(messageService.getMessagesBetweenUsers(senderId, receiverId));
     }
 
+    @Operation(
+        summary = "Get conversation thread",
+        description = "Retrieves one page of the current user's conversation with another user, messages in both "
+                + "directions, newest first. Pass nextCursor from the previous page to load older messages",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved messages"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor")
+        }
+    )
+    @GetMapping("/thread/{otherUserId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorPage<MessageDTO>> getThread(@PathVariable Long otherUserId,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(messageService.getThread(otherUserId, cursor, size));
+    }
+
     @Operation(
         summary = "Delete message",
         description = "Deletes an existing message",
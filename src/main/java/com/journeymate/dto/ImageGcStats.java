@@ -0,0 +1,20 @@
+package com.journeymate.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ImageGcStats {
+    private long runs;
+    private LocalDateTime lastRunStartedAt;
+    private long lastRunMillis;
+    private boolean lastRunDryRun;
+    private long lastRunFilesScanned;
+    private long lastRunOrphansFound;
+    private long lastRunOrphanBytes;
+    private long totalFilesDeleted;
+    private long totalBytesReclaimed;
+}
@@ -1,9 +1,13 @@
 package com.journeymate.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class MessageDTO {
     private Long id;
     private Long senderId;
@@ -0,0 +1,25 @@
+package com.journeymate.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/** A save, join request or rating of a trip post, as seen by the trending recompute. */
+@Data
+public class TripActivity {
+    private Long postId;
+    private LocalDateTime at;
+    // null unless the activity is a rating
+    private Integer rating;
+
+    public TripActivity(Long postId, LocalDateTime at) {
+        this.postId = postId;
+        this.at = at;
+    }
+
+    public TripActivity(Long postId, LocalDateTime at, Integer rating) {
+        this.postId = postId;
+        this.at = at;
+        this.rating = rating;
+    }
+}
@@ -0,0 +1,36 @@
+package com.journeymate.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One row of the trip detail query: the post, its creator summary and rating
+ * aggregate, repeated once per image (imageUrl is null for a post without images).
+ */
+@Data
+@AllArgsConstructor
+public class TripDetailRow {
+    private String uid;
+    private String createrUid;
+    private String createrName;
+    private String title;
+    private String description;
+    private String destination;
+    private BigDecimal price;
+    private String preference;
+    private Integer minAge;
+    private Integer maxAge;
+    private String gender;
+    private String personType;
+    private Integer personCount;
+    private LocalDate postExpireDate;
+    private LocalDate tripStartingDate;
+    private LocalDate tripEndingDate;
+    private String tripTransportation;
+    private Long ratingSum;
+    private Long ratingCount;
+    private String imageUrl;
+}
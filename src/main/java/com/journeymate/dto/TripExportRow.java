@@ -0,0 +1,38 @@
+package com.journeymate.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripExportRow {
+    private Long id;
+    private String uid;
+    private String createrUid;
+    private String createrName;
+    private String title;
+    private String description;
+    private String destination;
+    private BigDecimal price;
+    private String gender;
+    private String personType;
+    private Integer minAge;
+    private Integer maxAge;
+    private Integer personCount;
+    private LocalDate tripStartingDate;
+    private LocalDate tripEndingDate;
+    private LocalDate postExpireDate;
+    private long tripDuration;
+    private String tripTransportation;
+    private boolean deleted;
+    private Long ratingSum;
+    private Long ratingCount;
+    private LocalDateTime createdDate;
+    private LocalDateTime modifiedDate;
+}
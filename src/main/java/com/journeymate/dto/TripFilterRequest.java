@@ -0,0 +1,25 @@
+package com.journeymate.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import lombok.Data;
+
+@Data
+public class TripFilterRequest {
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private String gender;
+    private String personType;
+    // trips whose accepted age range overlaps [minAge, maxAge]
+    private Integer minAge;
+    private Integer maxAge;
+    // trips that start and end inside [tripStartingDate, tripEndingDate]
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate tripStartingDate;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate tripEndingDate;
+    private String tripTransportation;
+}
@@ -0,0 +1,19 @@
+package com.journeymate.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripFilterResult {
+    private List<TripPostDTO> items;
+    private String nextCursor;
+    // counts are only computed for the first page
+    private Long total;
+    private Map<String, Map<String, Long>> facets;
+}
@@ -0,0 +1,32 @@
+package com.journeymate.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+public class TripImportReport {
+    private long imported;
+    private long failed;
+    private List<Chunk> chunks = new ArrayList<>();
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    public static class Chunk {
+        private int chunk;
+        private int rows;
+        private int imported;
+        private long millis;
+        private double rowsPerSecond;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,13 @@
+package com.journeymate.dto;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class TripImportRow extends TripRequestDTO {
+    // keys of images already copied under upload.dir, or of stored cas/ images the post then shares
+    private List<String> images;
+}
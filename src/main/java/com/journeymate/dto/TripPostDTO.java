@@ -2,15 +2,12 @@ package com.journeymate.dto;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.journeymate.model.trip.TripFeedback;
-import com.journeymate.model.trip.TripImage;
-import com.journeymate.model.trip.TripPost;
-import com.journeymate.utils.CommonMethods;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -19,7 +16,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@JsonIgnoreProperties(value = {"id", "totalRating", "totalUser"})
+@JsonIgnoreProperties(value = {"id", "totalRating", "totalUser", "createdDate"})
 public class TripPostDTO {
 	
 	private Long id;
@@ -46,10 +43,11 @@ public class TripPostDTO {
     private Double rating;
     private Long totalRating;
     private Long totalUser;
+    private LocalDateTime createdDate;
     
     public TripPostDTO(Long id, String uid, String title, String description, String destination, BigDecimal amount,
 			String gender, String personType, LocalDate tripStartingDate, LocalDate tripEndingDate, LocalDate postExpireDate, long duration, 
-			String createrName, String image, Long totalRating, Long totalUser) {
+			String createrName, String image, Long totalRating, Long totalUser, LocalDateTime createdDate) {
     	this.id = id;
 		this.uid = uid;
 		this.title = title;
@@ -66,6 +64,7 @@ public class TripPostDTO {
 		this.image = image;
 		this.totalRating = totalRating;
 		this.totalUser = totalUser;
+		this.createdDate = createdDate;
 	}
     
     public TripPostDTO(Long id, String uid, String createrUid, String createrName, String title, String description, String destination, BigDecimal amount,
@@ -90,11 +89,12 @@ public class TripPostDTO {
 		this.totalUser = totalUser;
 	}
     
-    public static TripPostDTO convertToDTO(TripPost tripPost) {
+    public static TripPostDTO convertToDTO(List<TripDetailRow> rows, Function<String, String> imageMapper) {
+        TripDetailRow tripPost = rows.get(0);
         TripPostDTO dto = new TripPostDTO();
         dto.setUid(tripPost.getUid());
-        dto.setCreaterUid(tripPost.getCreater().getUid());
-        dto.setCreaterName(tripPost.getCreater().getFullName());
+        dto.setCreaterUid(tripPost.getCreaterUid());
+        dto.setCreaterName(tripPost.getCreaterName());
         dto.setTitle(tripPost.getTitle());
         dto.setDescription(tripPost.getDescription());
         dto.setDestination(tripPost.getDestination());
@@ -110,22 +110,20 @@ public class TripPostDTO {
         dto.setTripEndingDate(tripPost.getTripEndingDate());
         dto.setTripTransportation(tripPost.getTripTransportation());
         
-        List<TripFeedback> tf = tripPost.getTripFeedback();
-        Double totalRating = tf.stream().collect(Collectors.summarizingDouble(t->t.getRating())).getSum();
-        
-        if(totalRating != null && totalRating > 0) {
-        	dto.setRating(totalRating/tf.size());
+        if(tripPost.getRatingCount() != null && tripPost.getRatingCount() > 0) {
+        	dto.setRating((double) tripPost.getRatingSum() / tripPost.getRatingCount());
         }
         
     	List<String> images = new ArrayList<>();
         try {
-        	for(TripImage image : tripPost.getImages()) {            	
-        		String base64Image = CommonMethods.encodeImageToBase64(image.getImageUrl());
-        	    if (base64Image != null) {
-        	        // Add Data URI prefix so frontend can directly show the image
-        	    	images.add("data:image/jpeg;base64," + base64Image);
+        	for(TripDetailRow row : rows) {
+        		if (row.getImageUrl() == null) {
+        			continue;
+        		}
+        		String clientImage = imageMapper.apply(row.getImageUrl());
+        	    if (clientImage != null) {
+        	    	images.add(clientImage);
         	    }
-            	
             }
         } catch(Exception e) {
         	e.printStackTrace();
@@ -133,4 +131,4 @@ public class TripPostDTO {
         dto.setImages(images);        
         return dto;
     }
-}
\ No newline at end of file
+}
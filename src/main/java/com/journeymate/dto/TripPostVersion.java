@@ -0,0 +1,35 @@
+package com.journeymate.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * What the trip detail response depends on that can change: the post itself
+ * (modifiedDate) and its rating aggregate (ratingVersion).
+ */
+@Data
+@AllArgsConstructor
+public class TripPostVersion {
+    private LocalDateTime modifiedDate;
+    private Long ratingVersion;
+    private LocalDateTime ratingModifiedDate;
+
+    // weak: the same version may be serialized differently (compression, inline images)
+    public String getETag() {
+        long modified = modifiedDate == null ? 0 : toEpochMilli(modifiedDate);
+        return "W/\"" + Long.toHexString(modified) + "-" + Long.toHexString(ratingVersion == null ? 0 : ratingVersion) + "\"";
+    }
+
+    public long getLastModified() {
+        long modified = modifiedDate == null ? -1 : toEpochMilli(modifiedDate);
+        long rated = ratingModifiedDate == null ? -1 : toEpochMilli(ratingModifiedDate);
+        return Math.max(modified, rated);
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 
+import com.journeymate.exception.ValidationException;
 import com.journeymate.model.trip.TripPost;
 
 import lombok.Data;
@@ -26,6 +27,7 @@ public class TripRequestDTO {
     private String tripTransportation;    
     
 	public static void requestMapper(TripPost tripPost, TripRequestDTO dto) {
+		validate(dto);
 	    tripPost.setTitle(dto.getTitle());
 	    tripPost.setDescription(dto.getDescription());
 	    tripPost.setDestination(dto.getDestination());
@@ -42,4 +44,30 @@ public class TripRequestDTO {
 	    tripPost.setTripTransportation(dto.getTripTransportation());
 	    tripPost.setTripDuration(ChronoUnit.DAYS.between(dto.getTripStartingDate(), dto.getTripEndingDate()));
 	}
+
+	// the trip_posts column constraints, checked up front so a bad row fails with a message instead of at flush
+	public static void validate(TripRequestDTO dto) {
+		if (dto.getTitle() == null || dto.getTitle().isBlank()) {
+			throw new ValidationException("Title is required");
+		}
+		if (dto.getTitle().length() > 100) {
+			throw new ValidationException("Title must be at most 100 characters");
+		}
+		if (dto.getDescription() == null || dto.getDescription().isBlank()) {
+			throw new ValidationException("Description is required");
+		}
+		if (dto.getDestination() != null && dto.getDestination().length() > 150) {
+			throw new ValidationException("Destination must be at most 150 characters");
+		}
+		if (dto.getTripStartingDate() == null || dto.getTripEndingDate() == null) {
+			throw new ValidationException("Trip starting and ending dates are required");
+		}
+		if (tooLong(dto.getGender()) || tooLong(dto.getPersonType()) || tooLong(dto.getTripTransportation())) {
+			throw new ValidationException("Gender, person type and transportation must be at most 100 characters");
+		}
+	}
+
+	private static boolean tooLong(String value) {
+		return value != null && value.length() > 100;
+	}
 }
@@ -0,0 +1,17 @@
+package com.journeymate.event;
+
+import com.journeymate.dto.MessageDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published inside the transaction that stores a message, pushed to the recipient
+ * once it commits.
+ */
+@Getter
+@AllArgsConstructor
+public class MessageCreatedEvent {
+    private final String receiverUsername;
+    private final MessageDTO message;
+}
@@ -0,0 +1,32 @@
+package com.journeymate.event;
+
+import java.time.LocalDateTime;
+
+import com.journeymate.model.trip.TripPost;
+
+import lombok.Getter;
+
+/**
+ * Published inside the writing transaction and consumed by after-commit listeners.
+ * The post is detached by the time listeners run, so they may only read its scalar fields.
+ */
+@Getter
+public class TripPostEvent {
+
+    public enum Type {
+        SAVED, DELETED, RATED
+    }
+
+    private final Type type;
+    private final Long postId;
+    private final LocalDateTime createdDate;
+    private final TripPost post;
+
+    public TripPostEvent(Type type, TripPost post) {
+        this.type = type;
+        this.post = post;
+        // read while the session is open so lazy proxies are initialized
+        this.postId = post.getId();
+        this.createdDate = post.getCreatedDate();
+    }
+}
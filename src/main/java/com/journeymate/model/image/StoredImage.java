@@ -0,0 +1,40 @@
+package com.journeymate.model.image;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row per distinct image content. trip_images and users.profile_image point
+ * at it by digest; the bytes are dropped once ref_count reaches zero.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "stored_images")
+public class StoredImage {
+    // hex SHA-256 of the content
+    @Id
+    @Column(length = 64)
+    private String digest;
+
+    // path relative to upload.dir
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    private long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_date")
+    private LocalDateTime createdDate;
+}
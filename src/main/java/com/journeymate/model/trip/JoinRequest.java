@@ -10,7 +10,9 @@ import java.util.UUID;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "join_requests")
+@Table(name = "join_requests", indexes = {
+    @Index(name = "idx_join_requests_created_date", columnList = "created_date")
+})
 public class JoinRequest {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -11,6 +11,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "saved_posts", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"user_id", "trip_post_id"})
+}, indexes = {
+    // trending picks up saves since its last run
+    @Index(name = "idx_saved_posts_saved_at", columnList = "saved_at")
 })
 public class SavedPost {
     @Id
@@ -0,0 +1,28 @@
+package com.journeymate.model.trip;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single row recording up to when activity has been folded into trip_trending_scores.
+ * Locked for the duration of a recompute so two instances never count the same window.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "trending_watermark")
+public class TrendingWatermark {
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "processed_until", nullable = false)
+    private LocalDateTime processedUntil;
+}
@@ -10,6 +10,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -21,7 +22,9 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "trip_feedback")
+@Table(name = "trip_feedback", indexes = {
+    @Index(name = "idx_trip_feedback_created_date", columnList = "created_date")
+})
 public class TripFeedback {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
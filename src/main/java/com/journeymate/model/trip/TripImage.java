@@ -15,6 +15,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -25,7 +26,10 @@ import lombok.NoArgsConstructor;
 @Table(name = "trip_images")
 public class TripImage {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence (a table on MySQL) instead of IDENTITY so inserts can be JDBC-batched,
+    // see IdSequenceInitializer for keeping it ahead of existing ids
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trip_images_id")
+    @SequenceGenerator(name = "trip_images_id", sequenceName = "trip_images_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "uid", columnDefinition = "VARCHAR(255)", updatable = false, nullable = false)
@@ -38,6 +42,10 @@ public class TripImage {
 
     @Column(name = "image_url", nullable = false)
     private String imageUrl;
+
+    // stored_images.digest, null for images written before content addressing
+    @Column(length = 64)
+    private String digest;
     
     @Column(nullable = false, columnDefinition = "BOOLEAN DEFAULT FALSE")
     private boolean deleted;
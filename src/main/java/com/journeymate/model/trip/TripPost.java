@@ -16,11 +16,13 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -28,10 +30,24 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "trip_posts")
+@Table(name = "trip_posts", indexes = {
+    @Index(name = "idx_trip_posts_feed", columnList = "created_date, id"),
+    @Index(name = "idx_trip_posts_uid", columnList = "uid", unique = true),
+    // faceted filter: equality columns first, then the range the live-post predicate scans
+    @Index(name = "idx_trip_posts_gender_type", columnList = "gender, person_type, post_expire_date"),
+    @Index(name = "idx_trip_posts_transportation", columnList = "trip_transportation, post_expire_date"),
+    @Index(name = "idx_trip_posts_price", columnList = "price, post_expire_date"),
+    @Index(name = "idx_trip_posts_trip_dates", columnList = "trip_starting_date, trip_ending_date"),
+    @Index(name = "idx_trip_posts_age", columnList = "min_age, max_age"),
+    // the archival job walks expired posts oldest first
+    @Index(name = "idx_trip_posts_expire", columnList = "post_expire_date")
+})
 public class TripPost {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence (a table on MySQL) instead of IDENTITY so inserts can be JDBC-batched,
+    // see IdSequenceInitializer for keeping it ahead of existing ids
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trip_posts_id")
+    @SequenceGenerator(name = "trip_posts_id", sequenceName = "trip_posts_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "uid", columnDefinition = "VARCHAR(255)", updatable = false, nullable = false)
@@ -93,6 +109,20 @@ public class TripPost {
     @Column(name = "trip_transportation", length = 100)
     private String tripTransportation;
 
+    // maintained only by relative UPDATEs in TripPostRepository.adjustRating, never by entity flushes
+    @Column(name = "rating_sum", nullable = false, insertable = false, updatable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long ratingSum = 0L;
+
+    @Column(name = "rating_count", nullable = false, insertable = false, updatable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long ratingCount = 0L;
+
+    // bumped with every rating change, feeds the trip detail ETag
+    @Column(name = "rating_version", nullable = false, insertable = false, updatable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long ratingVersion = 0L;
+
+    @Column(name = "rating_modified_date", insertable = false, updatable = false)
+    private LocalDateTime ratingModifiedDate;
+
     @Column(name = "created_date")
     private LocalDateTime createdDate;
 
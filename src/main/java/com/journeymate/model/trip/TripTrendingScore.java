@@ -0,0 +1,37 @@
+package com.journeymate.model.trip;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Materialized trending score of a post with recent activity. The score is kept as
+ * the log of a forward-decayed sum (see TrendingService), so it only changes when new
+ * activity arrives and ordering by it equals ordering by the current decayed score.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "trip_trending_scores", indexes = {
+    @Index(name = "idx_trip_trending_scores_score", columnList = "log_score")
+})
+public class TripTrendingScore {
+    @Id
+    @Column(name = "trip_post_id")
+    private Long tripPostId;
+
+    @Column(name = "log_score", nullable = false)
+    private double logScore;
+
+    @Column(name = "last_activity_date")
+    private LocalDateTime lastActivityDate;
+
+    @Column(name = "modified_date")
+    private LocalDateTime modifiedDate;
+}
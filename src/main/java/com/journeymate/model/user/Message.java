@@ -8,12 +8,20 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+    // a thread page is one range scan, newest first
+    @Index(name = "idx_messages_conversation", columnList = "conversation_id, sent_at, id")
+})
 public class Message {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // null only on messages from before conversations, until MessageService backfills them
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "conversation_id")
+    private Conversation conversation;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id", nullable = false)
     private User sender;
@@ -48,6 +48,10 @@ public class User {
     @Column(name = "profile_image")
     private String profileImage;
 
+    // set for content-addressed images, profileImage is then a key under upload.dir instead of under profiles/
+    @Column(name = "profile_image_digest", length = 64)
+    private String profileImageDigest;
+
     @Column(name = "created_date")
     private LocalDateTime createdDate;
 
@@ -0,0 +1,41 @@
+package com.journeymate.repository.image;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.journeymate.model.image.StoredImage;
+
+public interface StoredImageRepository extends JpaRepository<StoredImage, String> {
+
+    // concurrent first uploads of the same content both land here, the loser just adds its reference
+    @Modifying
+    @Query(value = "INSERT INTO stored_images (digest, storage_key, content_type, size, ref_count, created_date) "
+    		+ "VALUES (:digest, :storageKey, :contentType, :size, 1, NOW()) "
+    		+ "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1", nativeQuery = true)
+    int acquire(String digest, String storageKey, String contentType, long size);
+
+    // only while the bytes still have a reference, a row at zero is about to be deleted with them
+    @Modifying
+    @Query("UPDATE StoredImage s SET s.refCount = s.refCount + 1 "
+    		+ "WHERE s.digest = :digest AND s.storageKey = :storageKey AND s.refCount > 0")
+    int incrementRefCount(String digest, String storageKey);
+
+    @Query("SELECT s.storageKey FROM StoredImage s WHERE s.digest = :digest")
+    Optional<String> findStorageKey(String digest);
+
+    @Modifying
+    @Query("UPDATE StoredImage s SET s.refCount = s.refCount - 1 WHERE s.digest = :digest AND s.refCount > 0")
+    int decrementRefCount(String digest);
+
+    @Modifying
+    @Query("DELETE FROM StoredImage s WHERE s.digest = :digest AND s.refCount = 0")
+    int deleteIfUnreferenced(String digest);
+
+    @Query("SELECT s.storageKey FROM StoredImage s WHERE s.storageKey IN :storageKeys")
+    List<String> findReferencedStorageKeys(Collection<String> storageKeys);
+}
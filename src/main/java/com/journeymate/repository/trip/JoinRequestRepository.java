@@ -3,7 +3,11 @@ package com.journeymate.repository.trip;
 import com.journeymate.model.trip.JoinRequest;
 import com.journeymate.model.trip.TripPost;
 
+import com.journeymate.dto.TripActivity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +16,8 @@ public interface JoinRequestRepository extends JpaRepository<JoinRequest, Long>
     List<JoinRequest> findByUserId(Long userId);
     List<JoinRequest> findByTripPostIdAndStatus(Long tripPostId, String status);
 	Optional<JoinRequest> findByUidAndDeletedFalse(String uid);
+
+	@Query("SELECT new com.journeymate.dto.TripActivity(j.tripPost.id, j.createdDate) FROM JoinRequest j "
+			+ "WHERE not j.deleted AND j.createdDate > :from AND j.createdDate <= :to")
+	List<TripActivity> findActivityBetween(LocalDateTime from, LocalDateTime to);
 }
\ No newline at end of file
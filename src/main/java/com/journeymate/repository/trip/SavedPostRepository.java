@@ -1,7 +1,11 @@
 package com.journeymate.repository.trip;
 
+import com.journeymate.dto.TripActivity;
 import com.journeymate.model.trip.SavedPost;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +15,8 @@ public interface SavedPostRepository extends JpaRepository<SavedPost, Long> {
     Optional<SavedPost> findByUserIdAndTripPostId(Long userId, Long tripPostId);
     boolean existsByUserIdAndTripPostId(Long userId, Long tripPostId);
     void deleteByUserIdAndTripPostId(Long userId, Long tripPostId);
+
+    @Query("SELECT new com.journeymate.dto.TripActivity(s.tripPost.id, s.savedAt) FROM SavedPost s "
+    		+ "WHERE s.savedAt > :from AND s.savedAt <= :to")
+    List<TripActivity> findActivityBetween(LocalDateTime from, LocalDateTime to);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.journeymate.repository.trip;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import com.journeymate.model.trip.TrendingWatermark;
+
+import jakarta.persistence.LockModeType;
+
+public interface TrendingWatermarkRepository extends JpaRepository<TrendingWatermark, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM TrendingWatermark w WHERE w.id = " + TrendingWatermark.ID)
+    Optional<TrendingWatermark> lock();
+}
@@ -0,0 +1,154 @@
+package com.journeymate.repository.trip;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.journeymate.dto.TripDetailRow;
+import com.journeymate.dto.TripPostDTO;
+
+/**
+ * Plain SQL over the *_archive tables. They are copies of the hot tables made with
+ * CREATE TABLE ... LIKE rather than entities, so rows move with INSERT ... SELECT and
+ * Hibernate never maps or validates them.
+ */
+@Repository
+public class TripArchiveRepository {
+
+    // hot table -> column that points at trip_posts, children first so the foreign keys allow the delete
+    public static final Map<String, String> TABLES = new LinkedHashMap<>();
+    static {
+        TABLES.put("trip_images", "trip_post_id");
+        TABLES.put("trip_feedback", "trip_post_id");
+        TABLES.put("saved_posts", "trip_post_id");
+        TABLES.put("join_requests", "trip_post_id");
+        TABLES.put("trip_posts", "id");
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // column lists per hot table, resolved once the archive tables are in sync
+    private final Map<String, String> columns = new LinkedHashMap<>();
+
+    public TripArchiveRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates missing archive tables and adds columns the hot tables gained since, so
+     * the copy never fails on a schema change. Columns are only ever added, as nullable.
+     */
+    public void createTables() {
+        for (String table : TABLES.keySet()) {
+            String archive = table + "_archive";
+            jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE IF NOT EXISTS " + archive + " LIKE " + table);
+            Map<String, String> hot = findColumnTypes(table);
+            Map<String, String> archived = findColumnTypes(archive);
+            hot.forEach((column, type) -> {
+                if (!archived.containsKey(column)) {
+                    jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE " + archive + " ADD COLUMN `" + column + "` " + type + " NULL");
+                }
+            });
+            columns.put(table, hot.keySet().stream().map(c -> "`" + c + "`").collect(Collectors.joining(", ")));
+        }
+    }
+
+    // SKIP LOCKED lets a second instance running the job take the next posts instead of waiting
+    public List<Long> lockExpiredPostIds(LocalDate expiredBefore, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM trip_posts WHERE post_expire_date < :expiredBefore "
+                + "ORDER BY post_expire_date, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+                new MapSqlParameterSource("expiredBefore", expiredBefore).addValue("limit", limit), Long.class);
+    }
+
+    public List<Long> lockDeletedPostIds(LocalDateTime modifiedBefore, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM trip_posts WHERE deleted AND modified_date < :modifiedBefore "
+                + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+                new MapSqlParameterSource("modifiedBefore", modifiedBefore).addValue("limit", limit), Long.class);
+    }
+
+    /**
+     * Copies the posts and every row hanging off them into the archive tables and
+     * deletes the originals. Call inside a transaction holding the posts' row locks.
+     */
+    public int archive(Collection<Long> postIds) {
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", postIds);
+        jdbcTemplate.update("DELETE FROM trip_trending_scores WHERE trip_post_id IN (:ids)", ids);
+        int moved = 0;
+        for (Map.Entry<String, String> table : TABLES.entrySet()) {
+            String columnList = columns.get(table.getKey());
+            jdbcTemplate.update("INSERT INTO " + table.getKey() + "_archive (" + columnList + ") SELECT " + columnList
+                    + " FROM " + table.getKey() + " WHERE " + table.getValue() + " IN (:ids)", ids);
+            moved = jdbcTemplate.update("DELETE FROM " + table.getKey() + " WHERE " + table.getValue() + " IN (:ids)", ids);
+        }
+        // trip_posts goes last, so this is the number of posts
+        return moved;
+    }
+
+    public List<String> findReferencedImageUrls(Collection<String> imageUrls) {
+        return jdbcTemplate.queryForList("SELECT image_url FROM trip_images_archive WHERE image_url IN (:imageUrls)",
+                new MapSqlParameterSource("imageUrls", imageUrls), String.class);
+    }
+
+    // same shape as TripPostRepository.findDetailRowsByUid
+    public List<TripDetailRow> findDetailRowsByUid(String uid) {
+        return jdbcTemplate.query("SELECT p.uid, u.uid AS creater_uid, u.full_name, p.title, p.description, p.destination, "
+                + "p.price, p.preference, p.min_age, p.max_age, p.gender, p.person_type, p.person_count, p.post_expire_date, "
+                + "p.trip_starting_date, p.trip_ending_date, p.trip_transportation, p.rating_sum, p.rating_count, i.image_url "
+                + "FROM trip_posts_archive p JOIN users u ON u.id = p.creater_id "
+                + "LEFT JOIN trip_images_archive i ON i.trip_post_id = p.id AND NOT i.deleted "
+                + "WHERE p.uid = :uid ORDER BY i.id",
+                new MapSqlParameterSource("uid", uid), (rs, rowNum) -> new TripDetailRow(rs.getString("uid"),
+                        rs.getString("creater_uid"), rs.getString("full_name"), rs.getString("title"),
+                        rs.getString("description"), rs.getString("destination"), rs.getBigDecimal("price"),
+                        rs.getString("preference"), getInteger(rs, "min_age"), getInteger(rs, "max_age"),
+                        rs.getString("gender"), rs.getString("person_type"), getInteger(rs, "person_count"),
+                        rs.getObject("post_expire_date", LocalDate.class), rs.getObject("trip_starting_date", LocalDate.class),
+                        rs.getObject("trip_ending_date", LocalDate.class), rs.getString("trip_transportation"),
+                        rs.getLong("rating_sum"), rs.getLong("rating_count"), rs.getString("image_url")));
+    }
+
+    // newest archived posts of one creator first, below beforeId when given
+    public List<TripPostDTO> findByCreater(Long createrId, Long beforeId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("createrId", createrId)
+                .addValue("beforeId", beforeId == null ? Long.MAX_VALUE : beforeId).addValue("limit", limit);
+        return jdbcTemplate.query("SELECT p.id, p.uid, p.title, p.description, p.destination, p.price, p.gender, p.person_type, "
+                + "p.trip_starting_date, p.trip_ending_date, p.post_expire_date, p.trip_duration, u.full_name, "
+                + "(SELECT MIN(i.image_url) FROM trip_images_archive i WHERE i.trip_post_id = p.id AND NOT i.deleted) AS image_url, "
+                + "p.rating_sum, p.rating_count, p.created_date "
+                + "FROM trip_posts_archive p JOIN users u ON u.id = p.creater_id "
+                + "WHERE p.creater_id = :createrId AND p.id < :beforeId ORDER BY p.id DESC LIMIT :limit",
+                params, (rs, rowNum) -> new TripPostDTO(rs.getLong("id"), rs.getString("uid"), rs.getString("title"),
+                        rs.getString("description"), rs.getString("destination"), rs.getBigDecimal("price"),
+                        rs.getString("gender"), rs.getString("person_type"), rs.getObject("trip_starting_date", LocalDate.class),
+                        rs.getObject("trip_ending_date", LocalDate.class), rs.getObject("post_expire_date", LocalDate.class),
+                        rs.getLong("trip_duration"), rs.getString("full_name"), rs.getString("image_url"),
+                        rs.getLong("rating_sum"), rs.getLong("rating_count"),
+                        rs.getObject("created_date", LocalDateTime.class)));
+    }
+
+    private Map<String, String> findColumnTypes(String table) {
+        Map<String, String> types = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT column_name, column_type FROM information_schema.columns "
+                + "WHERE table_schema = DATABASE() AND table_name = :table ORDER BY ordinal_position",
+                new MapSqlParameterSource("table", table),
+                rs -> {
+                    types.put(rs.getString(1), rs.getString(2));
+                });
+        return types;
+    }
+
+    private static Integer getInteger(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+}
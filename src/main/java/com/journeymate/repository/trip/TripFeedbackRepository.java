@@ -1,11 +1,19 @@
 package com.journeymate.repository.trip;
 
+import com.journeymate.dto.TripActivity;
 import com.journeymate.model.trip.TripFeedback;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TripFeedbackRepository extends JpaRepository<TripFeedback, Long> {
     List<TripFeedback> findByTripPostId(Long tripPostId);
     List<TripFeedback> findByCreatedById(Long fromUserId);
     List<TripFeedback> findByModifiedById(Long toUserId);
+
+    @Query("SELECT new com.journeymate.dto.TripActivity(f.tripPost.id, f.createdDate, f.rating) FROM TripFeedback f "
+    		+ "WHERE f.createdDate > :from AND f.createdDate <= :to")
+    List<TripActivity> findActivityBetween(LocalDateTime from, LocalDateTime to);
 }
\ No newline at end of file
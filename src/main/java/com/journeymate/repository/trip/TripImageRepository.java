@@ -1,9 +1,24 @@
 package com.journeymate.repository.trip;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import com.journeymate.model.trip.TripImage;
 
 public interface TripImageRepository extends JpaRepository<TripImage, Long> {
 
+    @Query("SELECT ti.imageUrl FROM TripImage ti WHERE ti.imageUrl IN :imageUrls")
+    List<String> findReferencedImageUrls(Collection<String> imageUrls);
+
+    @Query("SELECT ti FROM TripImage ti WHERE ti.id > :afterId AND LOCATE(:prefix, ti.imageUrl) = 1 ORDER BY ti.id")
+    List<TripImage> findWithPrefixAfter(Long afterId, String prefix, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE TripImage ti SET ti.imageUrl = :imageUrl WHERE ti.id = :id")
+    int updateImageUrl(Long id, String imageUrl);
 }
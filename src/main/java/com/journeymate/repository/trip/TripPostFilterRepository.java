@@ -0,0 +1,21 @@
+package com.journeymate.repository.trip;
+
+import java.util.List;
+import java.util.Map;
+
+import com.journeymate.dto.TripFilterRequest;
+import com.journeymate.utils.KeysetCursor;
+
+public interface TripPostFilterRepository {
+
+    String FACET_GENDER = "gender";
+    String FACET_PERSON_TYPE = "personType";
+    String FACET_TRANSPORTATION = "tripTransportation";
+    String FACET_PRICE = "price";
+
+    List<Long> findFilteredIds(TripFilterRequest filter, KeysetCursor after, int limit);
+
+    long countFiltered(TripFilterRequest filter);
+
+    Map<String, Long> countFacet(TripFilterRequest filter, String facet);
+}
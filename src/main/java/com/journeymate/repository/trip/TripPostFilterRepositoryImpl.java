@@ -0,0 +1,143 @@
+package com.journeymate.repository.trip;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.journeymate.dto.TripFilterRequest;
+import com.journeymate.exception.ValidationException;
+import com.journeymate.model.trip.TripPost;
+import com.journeymate.utils.KeysetCursor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Criteria queries for the faceted trip filter. Only the filters that are set
+ * become predicates so MySQL can pick the matching composite index on trip_posts.
+ */
+public class TripPostFilterRepositoryImpl implements TripPostFilterRepository {
+
+    private static final BigDecimal[] PRICE_BUCKETS = {
+            BigDecimal.valueOf(5000), BigDecimal.valueOf(10000), BigDecimal.valueOf(25000), BigDecimal.valueOf(50000) };
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findFilteredIds(TripFilterRequest filter, KeysetCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<TripPost> tp = query.from(TripPost.class);
+        List<Predicate> predicates = buildPredicates(cb, tp, filter, null);
+        if (after != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(tp.get("createdDate"), after.getTimestamp()),
+                    cb.and(cb.equal(tp.get("createdDate"), after.getTimestamp()), cb.lessThan(tp.get("id"), after.getId()))));
+        }
+        query.select(tp.get("id"))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(tp.get("createdDate")), cb.desc(tp.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long countFiltered(TripFilterRequest filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<TripPost> tp = query.from(TripPost.class);
+        query.select(cb.count(tp)).where(buildPredicates(cb, tp, filter, null).toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public Map<String, Long> countFacet(TripFilterRequest filter, String facet) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<TripPost> tp = query.from(TripPost.class);
+        Expression<?> value = facetExpression(cb, tp, facet);
+        // the facet's own filter is left out so the values a user could switch to stay visible
+        query.multiselect(value, cb.count(tp))
+                .where(buildPredicates(cb, tp, filter, facet).toArray(new Predicate[0]))
+                .groupBy(value);
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Tuple row : entityManager.createQuery(query).getResultList()) {
+            Object key = row.get(0);
+            if (key != null) {
+                counts.put(key.toString(), row.get(1, Long.class));
+            }
+        }
+        return counts;
+    }
+
+    private Expression<?> facetExpression(CriteriaBuilder cb, Root<TripPost> tp, String facet) {
+        switch (facet) {
+            case FACET_GENDER:
+                return tp.get("gender");
+            case FACET_PERSON_TYPE:
+                return tp.get("personType");
+            case FACET_TRANSPORTATION:
+                return tp.get("tripTransportation");
+            case FACET_PRICE:
+                Expression<BigDecimal> price = tp.get("price");
+                // a post without a price has no bucket, and null keys are dropped like for the other facets
+                CriteriaBuilder.Case<String> bucket = cb.<String>selectCase()
+                        .when(cb.isNull(price), cb.nullLiteral(String.class));
+                BigDecimal lower = BigDecimal.ZERO;
+                for (BigDecimal upper : PRICE_BUCKETS) {
+                    bucket = bucket.when(cb.lessThan(price, upper), lower + "-" + upper);
+                    lower = upper;
+                }
+                return bucket.otherwise(lower + "+");
+            default:
+                throw new ValidationException("Unknown facet " + facet);
+        }
+    }
+
+    // excludedFacet, when set, drops the filter on that facet's own column
+    private List<Predicate> buildPredicates(CriteriaBuilder cb, Root<TripPost> tp, TripFilterRequest filter,
+                                            String excludedFacet) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isFalse(tp.get("deleted")));
+        predicates.add(cb.greaterThanOrEqualTo(tp.<LocalDate>get("postExpireDate"), LocalDate.now()));
+        if (filter.getGender() != null && !FACET_GENDER.equals(excludedFacet)) {
+            predicates.add(cb.equal(tp.get("gender"), filter.getGender()));
+        }
+        if (filter.getPersonType() != null && !FACET_PERSON_TYPE.equals(excludedFacet)) {
+            predicates.add(cb.equal(tp.get("personType"), filter.getPersonType()));
+        }
+        if (filter.getTripTransportation() != null && !FACET_TRANSPORTATION.equals(excludedFacet)) {
+            predicates.add(cb.equal(tp.get("tripTransportation"), filter.getTripTransportation()));
+        }
+        boolean priceFacet = FACET_PRICE.equals(excludedFacet);
+        if (filter.getMinPrice() != null && !priceFacet) {
+            predicates.add(cb.greaterThanOrEqualTo(tp.get("price"), filter.getMinPrice()));
+        }
+        if (filter.getMaxPrice() != null && !priceFacet) {
+            predicates.add(cb.lessThanOrEqualTo(tp.get("price"), filter.getMaxPrice()));
+        }
+        if (filter.getMinAge() != null) {
+            predicates.add(cb.or(cb.isNull(tp.get("maxAge")), cb.greaterThanOrEqualTo(tp.get("maxAge"), filter.getMinAge())));
+        }
+        if (filter.getMaxAge() != null) {
+            predicates.add(cb.or(cb.isNull(tp.get("minAge")), cb.lessThanOrEqualTo(tp.get("minAge"), filter.getMaxAge())));
+        }
+        if (filter.getTripStartingDate() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(tp.get("tripStartingDate"), filter.getTripStartingDate()));
+        }
+        if (filter.getTripEndingDate() != null) {
+            predicates.add(cb.lessThanOrEqualTo(tp.get("tripEndingDate"), filter.getTripEndingDate()));
+        }
+        return predicates;
+    }
+}
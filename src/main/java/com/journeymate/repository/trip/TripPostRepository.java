@@ -1,35 +1,108 @@
 package com.journeymate.repository.trip;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.journeymate.dto.DBResponse;
+import com.journeymate.dto.TripDetailRow;
+import com.journeymate.dto.TripExportRow;
 import com.journeymate.dto.TripPostDTO;
+import com.journeymate.dto.TripPostVersion;
 import com.journeymate.model.trip.TripPost;
+import com.journeymate.search.TripIndexRow;
+
+import jakarta.persistence.QueryHint;
 
-public interface TripPostRepository extends JpaRepository<TripPost, Long> {
+public interface TripPostRepository extends JpaRepository<TripPost, Long>, TripPostFilterRepository {
 
     @Query("SELECT new com.journeymate.dto.TripPostDTO(tp.id, tp.uid, tp.title, tp.description, tp.destination, tp.price, "
-    		+ "tp.gender, tp.personType, tp.tripStartingDate, tp.tripEndingDate, tp.postExpireDate, tp.tripDuration, tp.creater.fullName, min(i.imageUrl), SUM(tf.rating), COUNT(tf.id)) "
-    		+ "FROM TripPost tp LEFT JOIN tp.tripFeedback tf "
-    		+ "LEFT JOIN tp.images i ON not i.deleted WHERE not tp.deleted AND tp.postExpireDate >= current_date() GROUP BY tp.id")
+    		+ "tp.gender, tp.personType, tp.tripStartingDate, tp.tripEndingDate, tp.postExpireDate, tp.tripDuration, tp.creater.fullName, min(i.imageUrl), tp.ratingSum, tp.ratingCount, tp.createdDate) "
+    		+ "FROM TripPost tp LEFT JOIN tp.images i ON not i.deleted WHERE not tp.deleted AND tp.postExpireDate >= current_date() GROUP BY tp.id")
 	List<TripPostDTO> findAllByDeletedFalse();
+
+    @Query("SELECT tp.id FROM TripPost tp WHERE not tp.deleted AND tp.postExpireDate >= current_date() "
+    		+ "ORDER BY tp.createdDate DESC, tp.id DESC")
+    List<Long> findFeedIdsFirstPage(Pageable pageable);
+
+    @Query("SELECT tp.id FROM TripPost tp WHERE not tp.deleted AND tp.postExpireDate >= current_date() "
+    		+ "AND (tp.createdDate < :createdDate OR (tp.createdDate = :createdDate AND tp.id < :id)) "
+    		+ "ORDER BY tp.createdDate DESC, tp.id DESC")
+    List<Long> findFeedIdsAfter(LocalDateTime createdDate, Long id, Pageable pageable);
+
+    @Query("SELECT new com.journeymate.dto.TripPostDTO(tp.id, tp.uid, tp.title, tp.description, tp.destination, tp.price, "
+    		+ "tp.gender, tp.personType, tp.tripStartingDate, tp.tripEndingDate, tp.postExpireDate, tp.tripDuration, tp.creater.fullName, min(i.imageUrl), tp.ratingSum, tp.ratingCount, tp.createdDate) "
+    		+ "FROM TripPost tp LEFT JOIN tp.images i ON not i.deleted WHERE tp.id IN (:ids) GROUP BY tp.id")
+    List<TripPostDTO> findFeedByIds(Collection<Long> ids);
     
     @Query("SELECT new com.journeymate.dto.TripPostDTO(tp.id, tp.uid, tp.creater.uid, tp.creater.fullName, tp.title, tp.description, tp.destination, tp.price, "
-    		+ "tp.gender, tp.personType, tp.tripStartingDate, tp.tripEndingDate, tp.postExpireDate, tp.tripDuration, min(i.imageUrl), SUM(tf.rating), COUNT(tf.id)) "
-    		+ "FROM TripPost tp LEFT JOIN tp.tripFeedback tf "
-    		+ "LEFT JOIN tp.images i ON not i.deleted WHERE not tp.deleted AND (:isAdmin = TRUE OR tp.creater.id=:userId) GROUP BY tp.id")
+    		+ "tp.gender, tp.personType, tp.tripStartingDate, tp.tripEndingDate, tp.postExpireDate, tp.tripDuration, min(i.imageUrl), tp.ratingSum, tp.ratingCount) "
+    		+ "FROM TripPost tp LEFT JOIN tp.images i ON not i.deleted WHERE not tp.deleted AND (:isAdmin = TRUE OR tp.creater.id=:userId) GROUP BY tp.id")
 	List<TripPostDTO> findAllByDeletedFalseAndUserId(Long userId, boolean isAdmin);
     
+    // MySQL Connector/J only streams rows instead of buffering the whole result when the fetch size is Integer.MIN_VALUE
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+    		@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT new com.journeymate.dto.TripExportRow(tp.id, tp.uid, c.uid, c.fullName, tp.title, tp.description, tp.destination, tp.price, "
+    		+ "tp.gender, tp.personType, tp.minAge, tp.maxAge, tp.personCount, tp.tripStartingDate, tp.tripEndingDate, tp.postExpireDate, "
+    		+ "tp.tripDuration, tp.tripTransportation, tp.deleted, tp.ratingSum, tp.ratingCount, tp.createdDate, tp.modifiedDate) "
+    		+ "FROM TripPost tp JOIN tp.creater c WHERE tp.id > :afterId ORDER BY tp.id")
+    Stream<TripExportRow> streamExportRowsAfter(Long afterId);
+    
+    @Query("SELECT new com.journeymate.search.TripIndexRow(tp.id, tp.uid, tp.title, tp.description, tp.destination, tp.postExpireDate, "
+    		+ "tp.tripStartingDate, tp.tripEndingDate, tp.price, tp.tripDuration, tp.minAge, tp.maxAge, tp.gender) "
+    		+ "FROM TripPost tp WHERE not tp.deleted AND tp.postExpireDate >= current_date() AND tp.id > :afterId ORDER BY tp.id")
+    List<TripIndexRow> findIndexRowsAfter(Long afterId, Pageable pageable);
+    
     @Query(value="SELECT trip_post_id AS first, min(image_url) AS second FROM trip_images WHERE not deleted AND trip_post_id IN (:postIds) GROUP BY trip_post_id", nativeQuery=true)
     List<DBResponse> getImagesByPostIds(List<Long> postIds);
 
 	Optional<TripPost> findByUidAndDeletedFalse(String uid);
+
+	// the whole detail view in one statement; feedback only contributes through the rating aggregate columns
+	@Query("SELECT new com.journeymate.dto.TripDetailRow(tp.uid, c.uid, c.fullName, tp.title, tp.description, tp.destination, tp.price, "
+			+ "tp.preference, tp.minAge, tp.maxAge, tp.gender, tp.personType, tp.personCount, tp.postExpireDate, tp.tripStartingDate, "
+			+ "tp.tripEndingDate, tp.tripTransportation, tp.ratingSum, tp.ratingCount, i.imageUrl) "
+			+ "FROM TripPost tp JOIN tp.creater c LEFT JOIN tp.images i ON not i.deleted "
+			+ "WHERE tp.uid = :uid AND not tp.deleted ORDER BY i.id")
+	List<TripDetailRow> findDetailRowsByUid(String uid);
+
+	// answers conditional requests for a trip from the uid index without touching images or feedback
+	@Query("SELECT new com.journeymate.dto.TripPostVersion(tp.modifiedDate, tp.ratingVersion, tp.ratingModifiedDate) "
+			+ "FROM TripPost tp WHERE tp.uid = :uid AND not tp.deleted")
+	Optional<TripPostVersion> findVersionByUid(String uid);
 	
 	boolean existsByUidAndCreaterIdAndDeletedFalse(String uid, Long userId);
 
 	void deleteByUid(String uid);
+
+	// modifiedAt comes from the application clock, like modified_date, so Last-Modified compares like with like
+	@Modifying
+	@Query(value = "UPDATE trip_posts SET rating_sum = rating_sum + :sumDelta, rating_count = rating_count + :countDelta, "
+			+ "rating_version = rating_version + 1, rating_modified_date = :modifiedAt WHERE id = :id", nativeQuery = true)
+	int adjustRating(Long id, long sumDelta, long countDelta, LocalDateTime modifiedAt);
+
+	@Query("SELECT COALESCE(MAX(tp.id), 0) FROM TripPost tp")
+	Long findMaxId();
+
+	// only rows that drifted are written, so the detail ETag of every other post stays valid
+	@Modifying
+	@Query(value = "UPDATE trip_posts tp LEFT JOIN (SELECT tf.trip_post_id, SUM(tf.rating) AS rating_sum, COUNT(*) AS rating_count "
+			+ "FROM trip_feedback tf WHERE tf.trip_post_id > :fromId AND tf.trip_post_id <= :toId GROUP BY tf.trip_post_id) agg "
+			+ "ON agg.trip_post_id = tp.id "
+			+ "SET tp.rating_sum = COALESCE(agg.rating_sum, 0), tp.rating_count = COALESCE(agg.rating_count, 0), "
+			+ "tp.rating_version = tp.rating_version + 1, tp.rating_modified_date = :modifiedAt "
+			+ "WHERE tp.id > :fromId AND tp.id <= :toId "
+			+ "AND (tp.rating_sum <> COALESCE(agg.rating_sum, 0) OR tp.rating_count <> COALESCE(agg.rating_count, 0))", nativeQuery = true)
+	int reconcileRatings(Long fromId, Long toId, LocalDateTime modifiedAt);
 }
\ No newline at end of file
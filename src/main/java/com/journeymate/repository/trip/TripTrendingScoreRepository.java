@@ -0,0 +1,22 @@
+package com.journeymate.repository.trip;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.journeymate.model.trip.TripTrendingScore;
+
+public interface TripTrendingScoreRepository extends JpaRepository<TripTrendingScore, Long> {
+
+    // walks idx_trip_trending_scores_score from the top, skipping posts that were deleted or expired since
+    @Query("SELECT t.tripPostId FROM TripTrendingScore t, TripPost tp WHERE tp.id = t.tripPostId "
+    		+ "AND not tp.deleted AND tp.postExpireDate >= current_date() ORDER BY t.logScore DESC, t.tripPostId DESC")
+    List<Long> findTopPostIds(Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM TripTrendingScore t WHERE t.logScore < :logScore")
+    int deleteByLogScoreBelow(double logScore);
+}
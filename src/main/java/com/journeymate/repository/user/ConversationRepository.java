@@ -0,0 +1,33 @@
+package com.journeymate.repository.user;
+
+import com.journeymate.model.user.Conversation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+
+    @Query("SELECT c.id FROM Conversation c WHERE c.userLow.id = :userLowId AND c.userHigh.id = :userHighId")
+    Optional<Long> findIdByUsers(Long userLowId, Long userHighId);
+
+    // a locking read sees a pair committed after this transaction's snapshot was taken
+    @Query(value = "SELECT id FROM conversations WHERE user_low_id = :userLowId AND user_high_id = :userHighId "
+            + "LOCK IN SHARE MODE", nativeQuery = true)
+    Optional<Long> findIdByUsersForShare(Long userLowId, Long userHighId);
+
+    // the unique pair makes a concurrent first message a no-op instead of a duplicate thread
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO conversations (user_low_id, user_high_id, created_date) "
+            + "VALUES (:userLowId, :userHighId, NOW(6))", nativeQuery = true)
+    int insertIfAbsent(Long userLowId, Long userHighId);
+
+    // one conversation per pair that has messages but no conversation yet
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO conversations (user_low_id, user_high_id, created_date) "
+            + "SELECT LEAST(m.sender_id, m.receiver_id), GREATEST(m.sender_id, m.receiver_id), MIN(m.sent_at) "
+            + "FROM messages m WHERE m.conversation_id IS NULL AND m.id > :fromId AND m.id <= :toId "
+            + "GROUP BY LEAST(m.sender_id, m.receiver_id), GREATEST(m.sender_id, m.receiver_id)", nativeQuery = true)
+    int insertMissingForMessages(long fromId, long toId);
+}
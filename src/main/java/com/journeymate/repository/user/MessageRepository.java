@@ -1,11 +1,39 @@
 package com.journeymate.repository.user;
 
+import com.journeymate.dto.MessageDTO;
 import com.journeymate.model.user.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findBySenderId(Long senderId);
     List<Message> findByReceiverId(Long receiverId);
-    List<Message> findBySenderIdAndReceiverId(Long senderId, Long receiverId);
-}
\ No newline at end of file
+
+    // projections read sender_id/receiver_id straight off the row, no user is loaded
+    @Query("SELECT new com.journeymate.dto.MessageDTO(m.id, m.sender.id, m.receiver.id, m.content, m.sentAt) "
+            + "FROM Message m WHERE m.conversation.id = :conversationId ORDER BY m.sentAt DESC, m.id DESC")
+    List<MessageDTO> findThreadFirstPage(Long conversationId, Pageable pageable);
+
+    @Query("SELECT new com.journeymate.dto.MessageDTO(m.id, m.sender.id, m.receiver.id, m.content, m.sentAt) "
+            + "FROM Message m WHERE m.conversation.id = :conversationId "
+            + "AND (m.sentAt < :sentAt OR (m.sentAt = :sentAt AND m.id < :id)) ORDER BY m.sentAt DESC, m.id DESC")
+    List<MessageDTO> findThreadBefore(Long conversationId, LocalDateTime sentAt, Long id, Pageable pageable);
+
+    @Query("SELECT new com.journeymate.dto.MessageDTO(m.id, m.sender.id, m.receiver.id, m.content, m.sentAt) "
+            + "FROM Message m WHERE m.conversation.id = :conversationId ORDER BY m.sentAt, m.id")
+    List<MessageDTO> findThread(Long conversationId);
+
+    @Query("SELECT COALESCE(MAX(m.id), 0) FROM Message m")
+    long findMaxId();
+
+    @Modifying
+    @Query(value = "UPDATE messages m JOIN conversations c ON c.user_low_id = LEAST(m.sender_id, m.receiver_id) "
+            + "AND c.user_high_id = GREATEST(m.sender_id, m.receiver_id) SET m.conversation_id = c.id "
+            + "WHERE m.conversation_id IS NULL AND m.id > :fromId AND m.id <= :toId", nativeQuery = true)
+    int assignConversations(long fromId, long toId);
+}
@@ -1,9 +1,13 @@
 package com.journeymate.repository.user;
 
 import com.journeymate.model.user.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -16,4 +20,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
 	Optional<Long> findUserIdByUsername(String username);
     
 	User findByUidAndEnabledTrueAndDeletedFalse(String uid);
+	
+	@Query("SELECT u.profileImage FROM User u WHERE u.profileImage IN :profileImages")
+	List<String> findReferencedProfileImages(Collection<String> profileImages);
+	
+	@Query("SELECT u FROM User u WHERE u.id > :afterId AND u.profileImage IS NOT NULL ORDER BY u.id")
+	List<User> findWithProfileImageAfter(Long afterId, Pageable pageable);
+	
+	@Modifying
+	@Query("UPDATE User u SET u.profileImage = :profileImage WHERE u.id = :id")
+	int updateProfileImage(Long id, String profileImage);
 }
\ No newline at end of file
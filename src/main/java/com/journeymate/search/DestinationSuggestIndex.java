@@ -0,0 +1,218 @@
+package com.journeymate.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Prefix trie of normalized destinations weighted by the number of live posts
+ * naming them. Every node caches its top {@link #MAX_SUGGESTIONS} destinations,
+ * so a lookup is a walk down the prefix plus a copy of that cached array. The
+ * caches on the changed path are rebuilt bottom-up on every write.
+ */
+@Component
+public class DestinationSuggestIndex implements TripIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Destination[] NONE = new Destination[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Destination> destinationByPost = new HashMap<>();
+    private final Node root = new Node();
+
+    @Override
+    public void upsert(TripIndexRow row) {
+        String key = row.getDestination() == null ? "" : toKey(row.getDestination(), false);
+        lock.writeLock().lock();
+        try {
+            Destination previous = destinationByPost.get(row.getId());
+            if (previous != null && previous.key.equals(key)) {
+                return;
+            }
+            if (previous != null) {
+                destinationByPost.remove(row.getId());
+                adjust(previous.key, null, -1);
+            }
+            if (!key.isEmpty()) {
+                destinationByPost.put(row.getId(), adjust(key, row.getDestination().trim(), 1));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long postId) {
+        lock.writeLock().lock();
+        try {
+            Destination previous = destinationByPost.remove(postId);
+            if (previous != null) {
+                adjust(previous.key, null, -1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        String key = toKey(prefix, true);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            Destination[] top = node.top;
+            String[] names = new String[Math.min(limit, top.length)];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = top[i].name;
+            }
+            return Arrays.asList(names);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Destination adjust(String key, String name, int delta) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = delta > 0 ? path[i].getOrCreateChild(key.charAt(i)) : path[i].child(key.charAt(i));
+        }
+        Node leaf = path[key.length()];
+        if (leaf.destination == null) {
+            leaf.destination = new Destination(key, name);
+        }
+        Destination destination = leaf.destination;
+        destination.posts += delta;
+        if (destination.posts <= 0) {
+            leaf.destination = null;
+        }
+
+        for (int i = key.length(); i >= 0; i--) {
+            Node node = path[i];
+            node.rebuildTop();
+            if (i > 0 && node.destination == null && node.childCount == 0) {
+                path[i - 1].removeChild(key.charAt(i - 1));
+            }
+        }
+        return destination;
+    }
+
+    // lower-cased, accents stripped, runs of punctuation and whitespace folded to one space
+    static String toKey(String text, boolean keepTrailingSpace) {
+        String normalized = TextAnalyzer.normalize(text);
+        StringBuilder key = new StringBuilder(normalized.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && key.length() > 0) {
+                    key.append(' ');
+                }
+                pendingSpace = false;
+                key.append(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        if (pendingSpace && keepTrailingSpace && key.length() > 0) {
+            key.append(' ');
+        }
+        return key.toString();
+    }
+
+    private static class Destination {
+        private final String key;
+        private final String name;
+        private int posts;
+
+        Destination(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+    }
+
+    private static class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+        private Destination destination;
+        private Destination[] top = NONE;
+
+        Node child(char label) {
+            int i = Arrays.binarySearch(labels, 0, childCount, label);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node getOrCreateChild(char label) {
+            int i = Arrays.binarySearch(labels, 0, childCount, label);
+            if (i >= 0) {
+                return children[i];
+            }
+            int insertAt = -i - 1;
+            if (childCount == labels.length) {
+                int capacity = Math.max(2, childCount * 2);
+                labels = Arrays.copyOf(labels, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(labels, insertAt, labels, insertAt + 1, childCount - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, childCount - insertAt);
+            Node child = new Node();
+            labels[insertAt] = label;
+            children[insertAt] = child;
+            childCount++;
+            return child;
+        }
+
+        void removeChild(char label) {
+            int i = Arrays.binarySearch(labels, 0, childCount, label);
+            if (i < 0) {
+                return;
+            }
+            System.arraycopy(labels, i + 1, labels, i, childCount - i - 1);
+            System.arraycopy(children, i + 1, children, i, childCount - i - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+
+        // merges this node's own destination with the children's cached tops
+        void rebuildTop() {
+            Destination[] merged = new Destination[MAX_SUGGESTIONS];
+            int size = 0;
+            if (destination != null) {
+                merged[size++] = destination;
+            }
+            for (int c = 0; c < childCount; c++) {
+                for (Destination candidate : children[c].top) {
+                    if (size == MAX_SUGGESTIONS && !ranksBefore(candidate, merged[size - 1])) {
+                        // children's tops are sorted, nothing further down this one can place
+                        break;
+                    }
+                    int at = size == MAX_SUGGESTIONS ? size - 1 : size++;
+                    while (at > 0 && ranksBefore(candidate, merged[at - 1])) {
+                        merged[at] = merged[at - 1];
+                        at--;
+                    }
+                    merged[at] = candidate;
+                }
+            }
+            top = size == 0 ? NONE : Arrays.copyOf(merged, size);
+        }
+
+        private static boolean ranksBefore(Destination a, Destination b) {
+            return a.posts != b.posts ? a.posts > b.posts : a.key.compareTo(b.key) < 0;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.journeymate.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Lower-cases, strips accents, splits on anything that is not a letter or digit,
+ * drops stop words and applies a light suffix stemmer so that "beaches" meets
+ * "beach" and "hiking" meets "hiked".
+ */
+public final class TextAnalyzer {
+
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "by", "for",
+            "from", "in", "is", "it", "of", "on", "or", "our", "the", "this", "to", "we", "with", "you", "your");
+
+    private TextAnalyzer() {
+    }
+
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        forEachTerm(text, terms::add);
+        return terms;
+    }
+
+    /**
+     * Adds {@code weight} to the frequency of every term in {@code text} and
+     * returns the weighted number of terms added.
+     */
+    public static int addTerms(String text, int weight, Map<String, Integer> frequencies) {
+        int[] count = new int[1];
+        forEachTerm(text, term -> {
+            frequencies.merge(term, weight, Integer::sum);
+            count[0] += weight;
+        });
+        return count[0];
+    }
+
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    static String stem(String token) {
+        int length = token.length();
+        if (length > 4 && token.endsWith("ies")) {
+            return token.substring(0, length - 3) + "y";
+        }
+        if (length > 5 && token.endsWith("ing")) {
+            return token.substring(0, length - 3);
+        }
+        if (length > 4 && token.endsWith("ed")) {
+            return token.substring(0, length - 2);
+        }
+        if (length > 4 && (token.endsWith("ches") || token.endsWith("shes") || token.endsWith("sses") || token.endsWith("xes"))) {
+            return token.substring(0, length - 2);
+        }
+        if (length > 3 && token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us")) {
+            return token.substring(0, length - 1);
+        }
+        return token;
+    }
+
+    private static void forEachTerm(String text, Consumer<String> consumer) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = normalized.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    consumer.accept(stem(token));
+                }
+                start = -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.journeymate.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Which live posts a user may join given their age and gender. Every post gets an
+ * ordinal, and there is one bitset over the ordinals per age year and per gender, plus
+ * the posts open to every age or gender. A user's eligible set is
+ * {@code live & age[a] & (anyGender | gender[g])}, evaluated a 64-bit word at a time
+ * only as far as the requested page needs.
+ *
+ * Ordinals are handed out in post id order, so walking them downwards lists the newest
+ * posts first and a post id works as the paging cursor. A post whose id is below the
+ * last ordinal's (concurrent creates commit out of id order) waits in a small sorted
+ * overflow that reads merge in, until the next compaction renumbers everything.
+ * Removed posts leave holes that are compacted away once they outnumber the live ones.
+ */
+@Component
+public class TripEligibilityIndex implements TripIndex {
+
+    public static final int MAX_AGE = 120;
+
+    private static final Set<String> ANY_GENDER = Set.of("", "any", "all", "both", "anyone");
+    private static final int MIN_COMPACT_HOLES = 1024;
+    private static final int MAX_OVERFLOW = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinalByPost = new HashMap<>();
+    private final TreeMap<Long, Restriction> overflow = new TreeMap<>();
+
+    // per ordinal, kept for holes too so postIds stays sorted for the cursor lookup
+    private long[] postIds = new long[1024];
+    private Restriction[] restrictions = new Restriction[1024];
+    private int ordinals;
+    private int holes;
+
+    private long[] live = new long[16];
+    private long[] anyAge = new long[16];
+    private long[] anyGender = new long[16];
+    private final long[][] byAge = new long[MAX_AGE + 1][];
+    private final Map<String, long[]> byGender = new HashMap<>();
+
+    public TripEligibilityIndex() {
+        for (int age = 0; age <= MAX_AGE; age++) {
+            byAge[age] = new long[live.length];
+        }
+    }
+
+    @Override
+    public void upsert(TripIndexRow row) {
+        Restriction restriction = new Restriction(row.getMinAge() == null ? -1 : clampAge(row.getMinAge()),
+                row.getMaxAge() == null ? -1 : clampAge(row.getMaxAge()), normalizeGender(row.getGender()));
+        Long postId = row.getId();
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalByPost.get(postId);
+            if (ordinal != null) {
+                clearBits(ordinal);
+                restrictions[ordinal] = restriction;
+                setBits(ordinal);
+            } else if (overflow.containsKey(postId) || (ordinals > 0 && postIds[ordinals - 1] > postId)) {
+                overflow.put(postId, restriction);
+                if (overflow.size() > MAX_OVERFLOW) {
+                    compact();
+                }
+            } else {
+                ordinal = ordinals++;
+                ensureCapacity(ordinals);
+                ordinalByPost.put(postId, ordinal);
+                postIds[ordinal] = postId;
+                restrictions[ordinal] = restriction;
+                setBits(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long postId) {
+        lock.writeLock().lock();
+        try {
+            if (overflow.remove(postId) != null) {
+                return;
+            }
+            Integer ordinal = ordinalByPost.remove(postId);
+            if (ordinal == null) {
+                return;
+            }
+            clearBits(ordinal);
+            restrictions[ordinal] = null;
+            holes++;
+            if (holes >= MIN_COMPACT_HOLES && holes > ordinalByPost.size()) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of live posts a user of this age and gender is eligible for, newest first,
+     * starting below {@code beforePostId} when given. A null age or gender only matches
+     * posts that do not restrict it.
+     */
+    public List<Long> findEligible(Integer age, String gender, Long beforePostId, int limit) {
+        int userAge = age == null ? -1 : clampAge(age);
+        String genderKey = normalizeGender(gender);
+        lock.readLock().lock();
+        try {
+            List<Long> fromOrdinals = scanOrdinals(userAge, genderKey, beforePostId, limit);
+            if (overflow.isEmpty()) {
+                return fromOrdinals;
+            }
+            NavigableMap<Long, Restriction> late = beforePostId == null ? overflow.descendingMap()
+                    : overflow.headMap(beforePostId, false).descendingMap();
+            List<Long> ids = new ArrayList<>(Math.min(limit, fromOrdinals.size() + late.size()));
+            Iterator<Map.Entry<Long, Restriction>> lateIterator = late.entrySet().iterator();
+            Map.Entry<Long, Restriction> next = nextAdmitting(lateIterator, userAge, genderKey);
+            int i = 0;
+            while (ids.size() < limit && (i < fromOrdinals.size() || next != null)) {
+                if (next == null || (i < fromOrdinals.size() && fromOrdinals.get(i) > next.getKey())) {
+                    ids.add(fromOrdinals.get(i++));
+                } else {
+                    ids.add(next.getKey());
+                    next = nextAdmitting(lateIterator, userAge, genderKey);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalByPost.size() + overflow.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> scanOrdinals(int userAge, String genderKey, Long beforePostId, int limit) {
+        long[] ageBits = userAge < 0 ? anyAge : byAge[userAge];
+        long[] genderBits = genderKey.isEmpty() ? null : byGender.get(genderKey);
+        int from = ordinals - 1;
+        if (beforePostId != null) {
+            int position = Arrays.binarySearch(postIds, 0, ordinals, beforePostId);
+            from = (position >= 0 ? position : -position - 1) - 1;
+        }
+
+        Long[] ids = new Long[Math.max(0, limit)];
+        int found = 0;
+        for (int word = from >> 6; word >= 0 && found < limit && from >= 0; word--) {
+            long bits = live[word] & ageBits[word] & (anyGender[word] | (genderBits == null ? 0 : genderBits[word]));
+            if (word == from >> 6 && (from & 63) != 63) {
+                bits &= (1L << ((from & 63) + 1)) - 1;
+            }
+            while (bits != 0 && found < limit) {
+                int bit = 63 - Long.numberOfLeadingZeros(bits);
+                ids[found++] = postIds[(word << 6) + bit];
+                bits &= ~(1L << bit);
+            }
+        }
+        return List.of(Arrays.copyOf(ids, found));
+    }
+
+    private static Map.Entry<Long, Restriction> nextAdmitting(Iterator<Map.Entry<Long, Restriction>> iterator,
+            int userAge, String genderKey) {
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Restriction> entry = iterator.next();
+            if (entry.getValue().admits(userAge, genderKey)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void setBits(int ordinal) {
+        Restriction restriction = restrictions[ordinal];
+        int word = ordinal >> 6;
+        long bit = 1L << ordinal;
+        live[word] |= bit;
+        if (restriction.minAge < 0 && restriction.maxAge < 0) {
+            anyAge[word] |= bit;
+        }
+        int to = restriction.maxAge < 0 ? MAX_AGE : restriction.maxAge;
+        for (int age = Math.max(0, restriction.minAge); age <= to; age++) {
+            byAge[age][word] |= bit;
+        }
+        if (restriction.gender.isEmpty()) {
+            anyGender[word] |= bit;
+        } else {
+            byGender.computeIfAbsent(restriction.gender, g -> new long[live.length])[word] |= bit;
+        }
+    }
+
+    private void clearBits(int ordinal) {
+        int word = ordinal >> 6;
+        long mask = ~(1L << ordinal);
+        live[word] &= mask;
+        anyAge[word] &= mask;
+        anyGender[word] &= mask;
+        for (long[] bits : byAge) {
+            bits[word] &= mask;
+        }
+        long[] genderBits = restrictions[ordinal] == null ? null : byGender.get(restrictions[ordinal].gender);
+        if (genderBits != null) {
+            genderBits[word] &= mask;
+        }
+    }
+
+    // renumbers the live posts and the overflow densely in id order
+    private void compact() {
+        TreeMap<Long, Restriction> all = new TreeMap<>(overflow);
+        ordinalByPost.forEach((postId, ordinal) -> all.put(postId, restrictions[ordinal]));
+        overflow.clear();
+
+        int capacity = Math.max(1024, all.size());
+        postIds = new long[capacity];
+        restrictions = new Restriction[capacity];
+        ordinals = 0;
+        holes = 0;
+        int words = Math.max(16, (capacity + 63) >> 6);
+        live = new long[words];
+        anyAge = new long[words];
+        anyGender = new long[words];
+        for (int age = 0; age <= MAX_AGE; age++) {
+            byAge[age] = new long[words];
+        }
+        byGender.clear();
+        ordinalByPost.clear();
+        for (Map.Entry<Long, Restriction> entry : all.entrySet()) {
+            int ordinal = ordinals++;
+            ordinalByPost.put(entry.getKey(), ordinal);
+            postIds[ordinal] = entry.getKey();
+            restrictions[ordinal] = entry.getValue();
+            setBits(ordinal);
+        }
+    }
+
+    private void ensureCapacity(int count) {
+        if (count > postIds.length) {
+            int capacity = Math.max(count, postIds.length * 2);
+            postIds = Arrays.copyOf(postIds, capacity);
+            restrictions = Arrays.copyOf(restrictions, capacity);
+        }
+        int words = (count + 63) >> 6;
+        if (words > live.length) {
+            int length = Math.max(words, live.length * 2);
+            live = Arrays.copyOf(live, length);
+            anyAge = Arrays.copyOf(anyAge, length);
+            anyGender = Arrays.copyOf(anyGender, length);
+            for (int age = 0; age <= MAX_AGE; age++) {
+                byAge[age] = Arrays.copyOf(byAge[age], length);
+            }
+            byGender.replaceAll((gender, bits) -> Arrays.copyOf(bits, length));
+        }
+    }
+
+    private static int clampAge(int age) {
+        return Math.max(0, Math.min(age, MAX_AGE));
+    }
+
+    private static String normalizeGender(String gender) {
+        String key = gender == null ? "" : gender.trim().toLowerCase(Locale.ROOT);
+        return ANY_GENDER.contains(key) ? "" : key;
+    }
+
+    // -1 for an unset age bound, "" for a post open to every gender
+    private static class Restriction {
+        private final int minAge;
+        private final int maxAge;
+        private final String gender;
+
+        Restriction(int minAge, int maxAge, String gender) {
+            this.minAge = minAge;
+            this.maxAge = maxAge;
+            this.gender = gender;
+        }
+
+        // same answer as the bitsets give for a post with this restriction
+        boolean admits(int userAge, String genderKey) {
+            boolean ageOk = userAge < 0 ? minAge < 0 && maxAge < 0
+                    : userAge >= Math.max(0, minAge) && userAge <= (maxAge < 0 ? MAX_AGE : maxAge);
+            return ageOk && (gender.isEmpty() || gender.equals(genderKey));
+        }
+    }
+}
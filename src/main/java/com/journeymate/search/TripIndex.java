@@ -0,0 +1,13 @@
+package com.journeymate.search;
+
+/**
+ * An in-memory structure over live trip posts. Implementations are fed by
+ * {@link TripIndexMaintainer} at startup and after every committed trip write,
+ * and must be safe for concurrent reads while a write is applied.
+ */
+public interface TripIndex {
+
+    void upsert(TripIndexRow row);
+
+    void remove(Long postId);
+}
@@ -0,0 +1,108 @@
+package com.journeymate.search;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.journeymate.event.TripPostEvent;
+import com.journeymate.model.trip.TripPost;
+import com.journeymate.repository.trip.TripPostRepository;
+
+/**
+ * Keeps every {@link TripIndex} in step with trip_posts: bulk load at startup,
+ * incremental updates after commit, and a daily sweep of posts past their expire date.
+ */
+@Component
+public class TripIndexMaintainer {
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private final Logger logger = LoggerFactory.getLogger(TripIndexMaintainer.class);
+
+    private final TripPostRepository tripPostRepository;
+    private final List<TripIndex> indexes;
+
+    private final TreeMap<LocalDate, Set<Long>> postsByExpireDate = new TreeMap<>();
+    private final Map<Long, LocalDate> expireDateByPost = new HashMap<>();
+
+    public TripIndexMaintainer(TripPostRepository tripPostRepository, List<TripIndex> indexes) {
+        this.tripPostRepository = tripPostRepository;
+        this.indexes = indexes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        long afterId = 0;
+        int loaded = 0;
+        List<TripIndexRow> rows;
+        do {
+            rows = tripPostRepository.findIndexRowsAfter(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            rows.forEach(this::upsert);
+            loaded += rows.size();
+            if (!rows.isEmpty()) {
+                afterId = rows.get(rows.size() - 1).getId();
+            }
+        } while (rows.size() == LOAD_BATCH_SIZE);
+        logger.info("Loaded {} live trip posts into {} indexes in {} ms", loaded, indexes.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener
+    public void onTripPostEvent(TripPostEvent event) {
+        if (event.getType() == TripPostEvent.Type.DELETED) {
+            remove(event.getPostId());
+        } else if (event.getType() == TripPostEvent.Type.SAVED) {
+            TripPost post = event.getPost();
+            if (post.isDeleted() || post.getPostExpireDate() == null || post.getPostExpireDate().isBefore(LocalDate.now())) {
+                remove(post.getId());
+            } else {
+                upsert(TripIndexRow.from(post));
+            }
+        }
+    }
+
+    @Scheduled(cron = "${app.feed-cache.rollover-cron:0 0 0 * * *}")
+    public synchronized void removeExpired() {
+        Map<LocalDate, Set<Long>> expired = postsByExpireDate.headMap(LocalDate.now());
+        Set<Long> postIds = new HashSet<>();
+        expired.values().forEach(postIds::addAll);
+        postIds.forEach(this::remove);
+    }
+
+    private synchronized void upsert(TripIndexRow row) {
+        untrackExpiry(row.getId());
+        expireDateByPost.put(row.getId(), row.getPostExpireDate());
+        postsByExpireDate.computeIfAbsent(row.getPostExpireDate(), date -> new HashSet<>()).add(row.getId());
+        indexes.forEach(index -> index.upsert(row));
+    }
+
+    private synchronized void remove(Long postId) {
+        untrackExpiry(postId);
+        indexes.forEach(index -> index.remove(postId));
+    }
+
+    private void untrackExpiry(Long postId) {
+        LocalDate expireDate = expireDateByPost.remove(postId);
+        if (expireDate != null) {
+            Set<Long> postIds = postsByExpireDate.get(expireDate);
+            postIds.remove(postId);
+            if (postIds.isEmpty()) {
+                postsByExpireDate.remove(expireDate);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.journeymate.search;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.journeymate.model.trip.TripPost;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TripIndexRow {
+    private Long id;
+    private String uid;
+    private String title;
+    private String description;
+    private String destination;
+    private LocalDate postExpireDate;
+    private LocalDate tripStartingDate;
+    private LocalDate tripEndingDate;
+    private BigDecimal price;
+    private long tripDuration;
+    private Integer minAge;
+    private Integer maxAge;
+    private String gender;
+
+    public static TripIndexRow from(TripPost tripPost) {
+        return new TripIndexRow(tripPost.getId(), tripPost.getUid(), tripPost.getTitle(), tripPost.getDescription(),
+                tripPost.getDestination(), tripPost.getPostExpireDate(), tripPost.getTripStartingDate(),
+                tripPost.getTripEndingDate(), tripPost.getPrice(), tripPost.getTripDuration(), tripPost.getMinAge(),
+                tripPost.getMaxAge(), tripPost.getGender());
+    }
+}
@@ -0,0 +1,230 @@
+package com.journeymate.search;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+
+/**
+ * Interval tree over the trip date ranges of live posts, answering "which trips
+ * overlap [from, to]" in O(log n + k). It is a treap keyed by (start day, post id)
+ * where every node also keeps the latest end day of its subtree, so whole subtrees
+ * that finish before the query starts are skipped.
+ */
+@Component
+public class TripIntervalIndex implements TripIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Node> nodeByPost = new HashMap<>();
+    private Node root;
+
+    @Override
+    public void upsert(TripIndexRow row) {
+        if (row.getTripStartingDate() == null || row.getTripEndingDate() == null) {
+            remove(row.getId());
+            return;
+        }
+        long start = row.getTripStartingDate().toEpochDay();
+        long end = Math.max(start, row.getTripEndingDate().toEpochDay());
+        Node node = new Node(row.getId(), row.getUid(), start, end, ThreadLocalRandom.current().nextInt());
+
+        lock.writeLock().lock();
+        try {
+            Node previous = nodeByPost.remove(row.getId());
+            if (previous != null) {
+                root = delete(root, previous.start, previous.postId);
+            }
+            root = insert(root, node);
+            nodeByPost.put(row.getId(), node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long postId) {
+        lock.writeLock().lock();
+        try {
+            Node previous = nodeByPost.remove(postId);
+            if (previous != null) {
+                root = delete(root, previous.start, previous.postId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} trips whose [tripStartingDate, tripEndingDate] shares at least
+     * one day with [from, to], ordered by trip start then post id. Paging resumes after the
+     * trip keyed by {@code afterStart}/{@code afterPostId} when those are given.
+     */
+    public List<Overlap> findOverlapping(LocalDate from, LocalDate to, LocalDate afterStart, Long afterPostId,
+            int limit) {
+        long startBound = afterStart == null ? Long.MIN_VALUE : afterStart.toEpochDay();
+        long postBound = afterPostId == null ? Long.MIN_VALUE : afterPostId;
+        List<Overlap> overlaps = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            collect(root, from.toEpochDay(), to.toEpochDay(), startBound, postBound, limit, overlaps);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return overlaps;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeByPost.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // in-order, so the walk can stop as soon as the limit is reached
+    private void collect(Node node, long from, long to, long afterStart, long afterPostId, int limit,
+            List<Overlap> overlaps) {
+        while (node != null && node.maxEnd >= from && overlaps.size() < limit) {
+            // this node and everything to its left were on earlier pages
+            if (compare(afterStart, afterPostId, node) >= 0) {
+                node = node.right;
+                continue;
+            }
+            collect(node.left, from, to, afterStart, afterPostId, limit, overlaps);
+            // everything to the right starts no earlier than this node
+            if (node.start > to || overlaps.size() >= limit) {
+                return;
+            }
+            if (node.end >= from) {
+                overlaps.add(new Overlap(node.uid, node.postId, LocalDate.ofEpochDay(node.start)));
+            }
+            node = node.right;
+        }
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.postId, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private Node delete(Node node, long start, long postId) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, postId, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, postId);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, postId);
+        } else {
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static int compare(long start, long postId, Node node) {
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : Long.compare(postId, node.postId);
+    }
+
+    @Getter
+    public static class Overlap {
+        private final String uid;
+        private final long postId;
+        private final LocalDate tripStartingDate;
+
+        Overlap(String uid, long postId, LocalDate tripStartingDate) {
+            this.uid = uid;
+            this.postId = postId;
+            this.tripStartingDate = tripStartingDate;
+        }
+    }
+
+    private static class Node {
+        private final long postId;
+        private final String uid;
+        private final long start;
+        private final long end;
+        private final int priority;
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        Node(long postId, String uid, long start, long end, int priority) {
+            this.postId = postId;
+            this.uid = uid;
+            this.start = start;
+            this.end = end;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        void update() {
+            maxEnd = end;
+            if (left != null && left.maxEnd > maxEnd) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > maxEnd) {
+                maxEnd = right.maxEnd;
+            }
+        }
+    }
+}
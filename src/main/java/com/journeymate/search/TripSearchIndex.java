@@ -0,0 +1,317 @@
+package com.journeymate.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Inverted index over title, destination and description with BM25 ranking.
+ * Field weights are folded into the term frequencies (a title hit counts three
+ * times, a destination hit twice). Removed documents are tombstoned and the
+ * postings are compacted once tombstones make up a quarter of the index.
+ */
+@Component
+public class TripSearchIndex implements TripIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESTINATION_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MIN_DEAD_DOCS_TO_COMPACT = 10_000;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docByPost = new HashMap<>();
+    private final BitSet deadDocs = new BitSet();
+    private final ConcurrentLinkedQueue<Accumulator> accumulators = new ConcurrentLinkedQueue<>();
+
+    private long[] docPost = new long[1024];
+    private int[] docLength = new int[1024];
+    private String[][] docTerms = new String[1024][];
+    private int docCount;
+    private int liveDocs;
+    private long totalLength;
+
+    @Override
+    public void upsert(TripIndexRow row) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = TextAnalyzer.addTerms(row.getTitle(), TITLE_WEIGHT, frequencies)
+                + TextAnalyzer.addTerms(row.getDestination(), DESTINATION_WEIGHT, frequencies)
+                + TextAnalyzer.addTerms(row.getDescription(), DESCRIPTION_WEIGHT, frequencies);
+
+        lock.writeLock().lock();
+        try {
+            removeDoc(row.getId());
+            int doc = docCount++;
+            ensureCapacity(docCount);
+            String[] terms = new String[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                Postings termPostings = postings.computeIfAbsent(entry.getKey(), term -> new Postings());
+                termPostings.add(doc, entry.getValue());
+                terms[i++] = entry.getKey();
+            }
+            docPost[doc] = row.getId();
+            docLength[doc] = length;
+            docTerms[doc] = terms;
+            docByPost.put(row.getId(), doc);
+            liveDocs++;
+            totalLength += length;
+            // an edit tombstones the previous slot, so a post edited over and over piles them up too
+            compactIfMostlyDead();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long postId) {
+        lock.writeLock().lock();
+        try {
+            removeDoc(postId);
+            compactIfMostlyDead();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // doc slots in use, live or tombstoned
+    int slotCount() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the best matching live posts, best first.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextAnalyzer.analyze(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        Accumulator accumulator = acquireAccumulator();
+        try {
+            accumulator.ensureCapacity(docCount);
+            float averageLength = liveDocs == 0 ? 1f : (float) totalLength / liveDocs;
+            for (String term : terms) {
+                Postings termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (liveDocs - termPostings.documentFrequency + 0.5) / (termPostings.documentFrequency + 0.5));
+                for (int i = 0; i < termPostings.size; i++) {
+                    int doc = termPostings.docs[i];
+                    if (deadDocs.get(doc)) {
+                        continue;
+                    }
+                    int tf = termPostings.frequencies[i];
+                    float norm = K1 * (1 - B + B * docLength[doc] / averageLength);
+                    accumulator.add(doc, (float) (idf * tf * (K1 + 1) / (tf + norm)));
+                }
+            }
+            return topDocs(accumulator, limit);
+        } finally {
+            accumulator.reset();
+            accumulators.offer(accumulator);
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> topDocs(Accumulator accumulator, int limit) {
+        // min-heap of the best `limit` docs seen so far
+        int[] heap = new int[Math.min(limit, accumulator.touchedCount)];
+        int heapSize = 0;
+        float[] scores = accumulator.scores;
+        for (int i = 0; i < accumulator.touchedCount; i++) {
+            int doc = accumulator.touched[i];
+            if (heapSize < heap.length) {
+                heap[heapSize] = doc;
+                siftUp(heap, heapSize++, scores);
+            } else if (heap.length > 0 && scores[doc] > scores[heap[0]]) {
+                heap[0] = doc;
+                siftDown(heap, heapSize, scores);
+            }
+        }
+        Long[] result = new Long[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            result[i] = docPost[heap[0]];
+            heap[0] = heap[i];
+            siftDown(heap, i, scores);
+        }
+        return Arrays.asList(result);
+    }
+
+    private static void siftUp(int[] heap, int index, float[] scores) {
+        int doc = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[heap[parent]] <= scores[doc]) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = doc;
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores) {
+        if (size == 0) {
+            return;
+        }
+        int index = 0;
+        int doc = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && scores[heap[child + 1]] < scores[heap[child]]) {
+                child++;
+            }
+            if (scores[doc] <= scores[heap[child]]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = doc;
+    }
+
+    private void removeDoc(Long postId) {
+        Integer doc = docByPost.remove(postId);
+        if (doc == null) {
+            return;
+        }
+        deadDocs.set(doc);
+        liveDocs--;
+        totalLength -= docLength[doc];
+        for (String term : docTerms[doc]) {
+            Postings termPostings = postings.get(term);
+            if (--termPostings.documentFrequency == 0) {
+                postings.remove(term);
+            }
+        }
+        docTerms[doc] = null;
+    }
+
+    private void compactIfMostlyDead() {
+        int dead = deadDocs.cardinality();
+        if (dead >= MIN_DEAD_DOCS_TO_COMPACT && dead * 4 >= docCount) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (deadDocs.get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = next;
+                docPost[next] = docPost[doc];
+                docLength[next] = docLength[doc];
+                docTerms[next] = docTerms[doc];
+                docByPost.put(docPost[next], next);
+                next++;
+            }
+        }
+        Arrays.fill(docTerms, next, docCount, null);
+        for (Postings termPostings : postings.values()) {
+            termPostings.remap(remap);
+        }
+        docCount = next;
+        deadDocs.clear();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > docPost.length) {
+            int newLength = Math.max(capacity, docPost.length * 2);
+            docPost = Arrays.copyOf(docPost, newLength);
+            docLength = Arrays.copyOf(docLength, newLength);
+            docTerms = Arrays.copyOf(docTerms, newLength);
+        }
+    }
+
+    private Accumulator acquireAccumulator() {
+        Accumulator accumulator = accumulators.poll();
+        return accumulator != null ? accumulator : new Accumulator();
+    }
+
+    private static class Postings {
+        private int[] docs = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+        private int documentFrequency;
+
+        void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+            documentFrequency++;
+        }
+
+        void remap(int[] remap) {
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[next] = doc;
+                    frequencies[next] = frequencies[i];
+                    next++;
+                }
+            }
+            size = next;
+        }
+    }
+
+    /**
+     * Reusable score buffer; pooled rather than thread-local so idle request
+     * threads do not each pin an index-sized array.
+     */
+    private static class Accumulator {
+        private float[] scores = new float[0];
+        private int[] touched = new int[0];
+        private int touchedCount;
+
+        void ensureCapacity(int capacity) {
+            if (scores.length < capacity) {
+                scores = new float[capacity];
+                touched = new int[capacity];
+            }
+        }
+
+        void add(int doc, float score) {
+            if (scores[doc] == 0f) {
+                touched[touchedCount++] = doc;
+            }
+            scores[doc] += score;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0f;
+            }
+            touchedCount = 0;
+        }
+    }
+}
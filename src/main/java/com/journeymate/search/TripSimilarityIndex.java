@@ -0,0 +1,235 @@
+package com.journeymate.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * k-nearest-neighbour index for "similar trips". Every live post is a fixed-width
+ * float vector (price, trip start, duration, age range, gender preference), already
+ * multiplied by the square root of each feature's weight so similarity is plain squared
+ * Euclidean distance, plus an interned destination id that adds a flat penalty when
+ * destinations differ. Vectors sit back to back in one float[], so a query is a linear
+ * scan over contiguous memory that the JIT unrolls; at 500k posts that is 4M floats.
+ */
+@Component
+public class TripSimilarityIndex implements TripIndex {
+
+    public static final int MAX_RESULTS = 50;
+
+    static final int DIMENSIONS = 8;
+
+    // feature scales: one unit of distance is roughly...
+    private static final float PRICE_SCALE = (float) (1 / Math.log(2)); // ...double or half the price
+    private static final float START_SCALE = 1 / 30f;                   // ...a month between trip starts
+    private static final float DURATION_SCALE = 1 / 3f;                 // ...three days longer or shorter
+    private static final float AGE_SCALE = 1 / 10f;                     // ...a decade on either age bound
+    private static final float GENDER_SCALE = (float) Math.sqrt(0.5);   // ...a different gender preference
+    private static final float DESTINATION_PENALTY = 4f;
+
+    private static final int NO_DESTINATION = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private float[] vectors = new float[1024 * DIMENSIONS];
+    private int[] destinations = new int[1024];
+    private long[] postIds = new long[1024];
+    private String[] uids = new String[1024];
+    private int size;
+
+    private final Map<Long, Integer> slotByPost = new HashMap<>();
+    private final Map<String, Integer> slotByUid = new HashMap<>();
+    private final Map<String, Integer> destinationIds = new HashMap<>();
+
+    @Override
+    public void upsert(TripIndexRow row) {
+        float[] vector = encode(row);
+        lock.writeLock().lock();
+        try {
+            int destination = internDestination(row.getDestination());
+            Integer slot = slotByPost.get(row.getId());
+            if (slot == null) {
+                slot = size++;
+                ensureCapacity(size);
+                slotByPost.put(row.getId(), slot);
+            } else {
+                slotByUid.remove(uids[slot]);
+            }
+            System.arraycopy(vector, 0, vectors, slot * DIMENSIONS, DIMENSIONS);
+            destinations[slot] = destination;
+            postIds[slot] = row.getId();
+            uids[slot] = row.getUid();
+            slotByUid.put(row.getUid(), slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long postId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByPost.remove(postId);
+            if (slot == null) {
+                return;
+            }
+            slotByUid.remove(uids[slot]);
+            // keep the slots dense by moving the last one into the hole
+            int last = --size;
+            if (slot != last) {
+                System.arraycopy(vectors, last * DIMENSIONS, vectors, slot * DIMENSIONS, DIMENSIONS);
+                destinations[slot] = destinations[last];
+                postIds[slot] = postIds[last];
+                uids[slot] = uids[last];
+                slotByPost.put(postIds[slot], slot);
+                slotByUid.put(uids[slot], slot);
+            }
+            uids[last] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Uids of the live posts closest to the given one, closest first, or null when the
+     * post is not in the index (deleted, expired or unknown).
+     */
+    public List<String> findSimilar(String uid, int limit) {
+        int k = Math.max(1, Math.min(limit, MAX_RESULTS));
+        lock.readLock().lock();
+        try {
+            Integer query = slotByUid.get(uid);
+            if (query == null) {
+                return null;
+            }
+            int queryOffset = query * DIMENSIONS;
+            float q0 = vectors[queryOffset], q1 = vectors[queryOffset + 1], q2 = vectors[queryOffset + 2],
+                    q3 = vectors[queryOffset + 3], q4 = vectors[queryOffset + 4], q5 = vectors[queryOffset + 5],
+                    q6 = vectors[queryOffset + 6], q7 = vectors[queryOffset + 7];
+            int queryDestination = destinations[query];
+
+            // bounded max-heap of the k best so far, worst at the root
+            float[] heapDistances = new float[k];
+            int[] heapSlots = new int[k];
+            int heapSize = 0;
+            float[] v = vectors;
+            for (int slot = 0, offset = 0; slot < size; slot++, offset += DIMENSIONS) {
+                if (slot == query) {
+                    continue;
+                }
+                float d0 = v[offset] - q0, d1 = v[offset + 1] - q1, d2 = v[offset + 2] - q2, d3 = v[offset + 3] - q3;
+                float d4 = v[offset + 4] - q4, d5 = v[offset + 5] - q5, d6 = v[offset + 6] - q6, d7 = v[offset + 7] - q7;
+                float distance = (d0 * d0 + d1 * d1) + (d2 * d2 + d3 * d3) + (d4 * d4 + d5 * d5) + (d6 * d6 + d7 * d7);
+                if (destinations[slot] != queryDestination || queryDestination == NO_DESTINATION) {
+                    distance += DESTINATION_PENALTY;
+                }
+                if (heapSize < k) {
+                    heapDistances[heapSize] = distance;
+                    heapSlots[heapSize] = slot;
+                    siftUp(heapDistances, heapSlots, heapSize++);
+                } else if (distance < heapDistances[0]) {
+                    heapDistances[0] = distance;
+                    heapSlots[0] = slot;
+                    siftDown(heapDistances, heapSlots, heapSize);
+                }
+            }
+
+            Integer[] order = new Integer[heapSize];
+            for (int i = 0; i < heapSize; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Float.compare(heapDistances[a], heapDistances[b]));
+            List<String> similar = new ArrayList<>(heapSize);
+            for (Integer i : order) {
+                similar.add(uids[heapSlots[i]]);
+            }
+            return similar;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static float[] encode(TripIndexRow row) {
+        float[] vector = new float[DIMENSIONS];
+        vector[0] = row.getPrice() == null ? 0 : (float) Math.log1p(Math.max(0, row.getPrice().doubleValue())) * PRICE_SCALE;
+        vector[1] = row.getTripStartingDate() == null ? 0 : row.getTripStartingDate().toEpochDay() * START_SCALE;
+        vector[2] = row.getTripDuration() * DURATION_SCALE;
+        vector[3] = row.getMinAge() == null ? 0 : row.getMinAge() * AGE_SCALE;
+        vector[4] = row.getMaxAge() == null ? 0 : row.getMaxAge() * AGE_SCALE;
+        String gender = row.getGender() == null ? "" : row.getGender().trim().toLowerCase(Locale.ROOT);
+        // one-hot, so any two different preferences are equally far apart
+        vector["male".equals(gender) ? 5 : "female".equals(gender) ? 6 : 7] = GENDER_SCALE;
+        return vector;
+    }
+
+    private int internDestination(String destination) {
+        String key = destination == null ? "" : DestinationSuggestIndex.toKey(destination, false);
+        if (key.isEmpty()) {
+            return NO_DESTINATION;
+        }
+        // ids are never released; distinct destinations are few compared to posts
+        return destinationIds.computeIfAbsent(key, k -> destinationIds.size());
+    }
+
+    private void ensureCapacity(int slots) {
+        if (slots <= postIds.length) {
+            return;
+        }
+        int capacity = Math.max(slots, postIds.length * 2);
+        vectors = Arrays.copyOf(vectors, capacity * DIMENSIONS);
+        destinations = Arrays.copyOf(destinations, capacity);
+        postIds = Arrays.copyOf(postIds, capacity);
+        uids = Arrays.copyOf(uids, capacity);
+    }
+
+    private static void siftUp(float[] distances, int[] slots, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (distances[parent] >= distances[i]) {
+                return;
+            }
+            swap(distances, slots, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(float[] distances, int[] slots, int size) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int largest = left + 1 < size && distances[left + 1] > distances[left] ? left + 1 : left;
+            if (distances[i] >= distances[largest]) {
+                return;
+            }
+            swap(distances, slots, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(float[] distances, int[] slots, int a, int b) {
+        float distance = distances[a];
+        distances[a] = distances[b];
+        distances[b] = distance;
+        int slot = slots[a];
+        slots[a] = slots[b];
+        slots[b] = slot;
+    }
+}
@@ -0,0 +1,217 @@
+package com.journeymate.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.journeymate.service.StoredImageService.StagedImage;
+import com.journeymate.storage.ImageStore;
+import com.journeymate.utils.CommonMethods;
+import com.journeymate.utils.ImageVariant;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class ImageService {
+
+    public static final String IMAGE_URL_PREFIX = "/api/public/images/";
+
+    private final Logger logger = LoggerFactory.getLogger(ImageService.class);
+
+    private final StoredImageService storedImageService;
+    private final ImageVariantService imageVariantService;
+    private final ImageStore imageStore;
+
+    @Value("${upload.dir}")
+    private String uploadDir;
+
+    // keeps the old data-uri payloads for clients that cannot follow image urls yet
+    @Value("${app.images.inline:false}")
+    private boolean inlineImages;
+
+    public String toClientImage(String reference) {
+        return toClientImage(reference, ImageVariant.ORIGINAL);
+    }
+
+    public String toClientImage(String reference, ImageVariant variant) {
+        if (reference == null) {
+            return null;
+        }
+        String key = resolveVariant(toKey(reference), variant);
+        if (inlineImages) {
+            String encodeImage = CommonMethods.encodeImageToBase64(imageStore, key);
+            return encodeImage == null ? null : "data:" + getContentType(key) + ";base64," + encodeImage;
+        }
+        return IMAGE_URL_PREFIX + key;
+    }
+
+    /**
+     * Streams every non-empty upload into the staging area, concurrently on virtual
+     * threads. Call before opening the transaction; either all uploads are staged or
+     * none are left behind.
+     */
+    public List<StagedImage> stageUploads(List<MultipartFile> files) {
+        List<MultipartFile> uploads = files == null ? List.of() : files.stream().filter(file -> !file.isEmpty()).toList();
+        if (uploads.isEmpty()) {
+            return List.of();
+        }
+
+        List<Future<StagedImage>> writes = new ArrayList<>(uploads.size());
+        // close() waits for every write, so nothing is still running when we clean up
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MultipartFile file : uploads) {
+                writes.add(executor.submit(() -> storedImageService.stage(file)));
+            }
+        }
+
+        List<StagedImage> staged = new ArrayList<>(uploads.size());
+        Throwable failure = null;
+        for (Future<StagedImage> write : writes) {
+            try {
+                staged.add(write.get());
+            } catch (ExecutionException e) {
+                failure = failure == null ? e.getCause() : failure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            discardStaged(staged);
+            throw new RuntimeException("Failed to save image file", failure);
+        }
+        return staged;
+    }
+
+    /**
+     * Takes a reference on every staged upload in the current transaction. The files are
+     * renamed into place just before commit, so committed rows never point at missing
+     * bytes, and removed again if the transaction rolls back.
+     */
+    public void commitStaged(List<StagedImage> staged) {
+        if (staged.isEmpty()) {
+            return;
+        }
+        staged.forEach(storedImageService::acquire);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            staged.forEach(this::promote);
+            staged.forEach(image -> imageVariantService.generateVariants(image.getKey()));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // a failure here rolls the transaction back
+                staged.forEach(ImageService.this::promote);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    staged.forEach(image -> imageVariantService.generateVariants(image.getKey()));
+                } else {
+                    runOffRequestThread(() -> discardStaged(staged));
+                }
+            }
+        });
+    }
+
+    public void discardStaged(List<StagedImage> staged) {
+        staged.forEach(storedImageService::discard);
+    }
+
+    /**
+     * Lets go of a stored image. Content-addressed images are reference counted, older
+     * files are deleted outright; either way the disk work waits for the commit.
+     */
+    public void release(String reference, String digest) {
+        if (digest != null) {
+            String unreferenced = storedImageService.release(digest);
+            if (unreferenced != null) {
+                afterCommit(() -> storedImageService.deleteUnreferenced(digest, unreferenced));
+            }
+            return;
+        }
+        String key = toKey(reference);
+        afterCommit(() -> {
+            try {
+                imageStore.delete(key);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("Failed to delete {}: {}", key, e.getMessage());
+            }
+            imageVariantService.deleteVariants(key);
+        });
+    }
+
+    private void promote(StagedImage image) {
+        try {
+            storedImageService.promote(image);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save image file", e);
+        }
+    }
+
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runOffRequestThread(task);
+            }
+        });
+    }
+
+    // after-commit callbacks still run before the connection goes back to the pool
+    private void runOffRequestThread(Runnable task) {
+        Thread.ofVirtual().name("image-cleanup").start(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.warn("Image cleanup failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    public boolean exists(String key) {
+        return imageStore.exists(key);
+    }
+
+    // variants are generated asynchronously and skipped for small sources, so fall back to the original
+    public String resolveVariant(String originalKey, ImageVariant variant) {
+        String variantKey = variant.pathFor(originalKey);
+        return variantKey.equals(originalKey) || !imageStore.exists(variantKey) ? originalKey : variantKey;
+    }
+
+    public MediaType getContentType(String fileName) {
+        return MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    /**
+     * The store key for a reference read from the database. Rows written before keys
+     * were introduced hold upload.dir + key until {@link com.journeymate.storage.ImageKeyMigration} runs.
+     */
+    public String toKey(String reference) {
+        if (reference.startsWith(uploadDir)) {
+            return reference.substring(uploadDir.length());
+        }
+        return reference;
+    }
+}
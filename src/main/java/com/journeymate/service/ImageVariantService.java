@@ -0,0 +1,178 @@
+package com.journeymate.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.journeymate.storage.ImageStore;
+import com.journeymate.utils.ImageVariant;
+
+import jakarta.annotation.PreDestroy;
+
+@Service
+public class ImageVariantService {
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    private final ThreadPoolExecutor executor;
+    private final ImageStore imageStore;
+
+    public ImageVariantService(ImageStore imageStore, @Value("${app.images.variant-threads:2}") int threads,
+                               @Value("${app.images.variant-queue:100}") int queueSize) {
+        this.imageStore = imageStore;
+        AtomicInteger counter = new AtomicInteger();
+        // decoding a 10MB upload can take hundreds of MB of raster, so keep the pool small;
+        // when the queue is full the uploading request thread does the work itself
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread thread = new Thread(r, "image-variants-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public void generateVariantsAfterCommit(List<String> originalKeys) {
+        if (originalKeys.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    originalKeys.forEach(ImageVariantService.this::generateVariants);
+                }
+            });
+        } else {
+            originalKeys.forEach(this::generateVariants);
+        }
+    }
+
+    public void generateVariants(String originalKey) {
+        executor.execute(() -> {
+            try {
+                writeVariants(originalKey);
+            } catch (Exception e) {
+                logger.warn("Failed to generate variants for {}: {}", originalKey, e.getMessage());
+            }
+        });
+    }
+
+    public void deleteVariants(String originalKey) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (variant == ImageVariant.ORIGINAL) {
+                continue;
+            }
+            try {
+                imageStore.delete(variant.pathFor(originalKey));
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("Failed to delete variant {}: {}", variant.pathFor(originalKey), e.getMessage());
+            }
+        }
+    }
+
+    private void writeVariants(String originalKey) throws IOException {
+        BufferedImage source;
+        try (InputStream in = imageStore.open(originalKey)) {
+            source = ImageIO.read(in);
+        }
+        if (source == null) {
+            // not a format ImageIO can decode, clients keep getting the original
+            return;
+        }
+        String format = ImageVariant.formatFor(originalKey);
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (variant == ImageVariant.ORIGINAL || source.getWidth() <= variant.getMaxWidth()) {
+                continue;
+            }
+            String target = variant.pathFor(originalKey);
+            if (imageStore.exists(target)) {
+                continue;
+            }
+            BufferedImage scaled = scaleToWidth(source, variant.getMaxWidth(), "png".equals(format));
+            Path temp = imageStore.createStagingFile();
+            try {
+                write(scaled, format, temp);
+                // false when a concurrent run got there first, the temp file goes either way
+                imageStore.put(temp, target);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private BufferedImage scaleToWidth(BufferedImage source, int targetWidth, boolean keepAlpha) {
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * (targetWidth / (double) source.getWidth())));
+        int type = keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        // halve step by step, a single bilinear pass drops too much detail on large reductions
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (!keepAlpha) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        if (!"jpg".equals(format)) {
+            ImageIO.write(image, format, target.toFile());
+            return;
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        ImageWriter writer = writers.next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
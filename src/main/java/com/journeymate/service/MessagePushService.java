@@ -0,0 +1,47 @@
+package com.journeymate.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.journeymate.event.MessageCreatedEvent;
+
+/**
+ * Pushes a stored message to its recipient's open STOMP sessions after the commit.
+ * Delivery is best effort: a recipient who is offline, or whose session is backed
+ * up, reads the message from the thread endpoint instead.
+ */
+@Service
+public class MessagePushService {
+
+    public static final String MESSAGES_QUEUE = "/queue/messages";
+
+    private final Logger logger = LoggerFactory.getLogger(MessagePushService.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry userRegistry;
+
+    public MessagePushService(SimpMessagingTemplate messagingTemplate, SimpUserRegistry userRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.userRegistry = userRegistry;
+    }
+
+    @TransactionalEventListener
+    public void onMessageCreated(MessageCreatedEvent event) {
+        // most recipients are not connected, skip building and routing a message for nobody
+        if (userRegistry.getUser(event.getReceiverUsername()) == null) {
+            return;
+        }
+        try {
+            messagingTemplate.convertAndSendToUser(event.getReceiverUsername(), MESSAGES_QUEUE, event.getMessage());
+        } catch (MessagingException e) {
+            // the outbound queue is full, the message is stored and the client catches up on reconnect
+            logger.warn("Could not push message {} to {}: {}", event.getMessage().getId(),
+                    event.getReceiverUsername(), e.getMessage());
+        }
+    }
+}
@@ -1,24 +1,86 @@
 package com.journeymate.service;
 
+import com.journeymate.dto.CursorPage;
 import com.journeymate.dto.MessageDTO;
+import com.journeymate.event.MessageCreatedEvent;
 import com.journeymate.model.user.Message;
 import com.journeymate.model.user.User;
+import com.journeymate.repository.user.ConversationRepository;
 import com.journeymate.repository.user.MessageRepository;
 import com.journeymate.repository.user.UserRepository;
+import com.journeymate.utils.KeysetCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class MessageService {
+    public static final int DEFAULT_PAGE_SIZE = 30;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(MessageService.class);
+
     private final MessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
     private final UserRepository userRepository;
+    private final ContextService contextService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.messages.backfill-conversations-on-startup:true}")
+    private boolean backfillOnStartup;
 
-    public MessageService(MessageRepository messageRepository, UserRepository userRepository) {
+    @Value("${app.messages.backfill-chunk-size:5000}")
+    private int backfillChunkSize;
+
+    public MessageService(MessageRepository messageRepository, ConversationRepository conversationRepository,
+                          UserRepository userRepository, ContextService contextService,
+                          ApplicationEventPublisher eventPublisher, TransactionTemplate transactionTemplate) {
         this.messageRepository = messageRepository;
+        this.conversationRepository = conversationRepository;
         this.userRepository = userRepository;
+        this.contextService = contextService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup) {
+            backfillConversations();
+        }
+    }
+
+    /**
+     * Puts messages written before conversations existed into their conversation.
+     * Runs in id ranges, one short transaction each; already assigned rows are skipped.
+     */
+    public int backfillConversations() {
+        long maxId = messageRepository.findMaxId();
+        int updated = 0;
+        for (long fromId = 0; fromId < maxId; fromId += backfillChunkSize) {
+            long from = fromId;
+            Integer rows = transactionTemplate.execute(status -> {
+                conversationRepository.insertMissingForMessages(from, from + backfillChunkSize);
+                return messageRepository.assignConversations(from, from + backfillChunkSize);
+            });
+            updated += rows == null ? 0 : rows;
+        }
+        if (updated > 0) {
+            logger.info("Assigned {} messages to conversations", updated);
+        }
+        return updated;
     }
 
     @Transactional
@@ -32,10 +94,14 @@ public class MessageService {
         Message message = new Message();
         message.setSender(sender);
         message.setReceiver(receiver);
+        message.setConversation(conversationRepository.getReferenceById(getOrCreateConversationId(sender.getId(), receiver.getId())));
         message.setContent(messageDTO.getContent());
         
         Message savedMessage = messageRepository.save(message);
-        return convertToDTO(savedMessage);
+        MessageDTO dto = convertToDTO(savedMessage);
+        // delivered to the recipient's open sessions once this commits
+        eventPublisher.publishEvent(new MessageCreatedEvent(receiver.getUsername(), dto));
+        return dto;
     }
 
     @Transactional(readOnly = true)
@@ -66,11 +132,44 @@ public class MessageService {
                 .collect(Collectors.toList());
     }
 
+    // both directions, oldest first
     @Transactional(readOnly = true)
     public List<MessageDTO> getMessagesBetweenUsers(Long senderId, Long receiverId) {
-        return messageRepository.findBySenderIdAndReceiverId(senderId, receiverId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return findConversationId(senderId, receiverId)
+                .map(messageRepository::findThread)
+                .orElse(List.of());
+    }
+
+    /**
+     * One page of the current user's thread with another user, both directions,
+     * newest first. Pass nextCursor from the previous page to go further back.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<MessageDTO> getThread(Long otherUserId, String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        User user = contextService.getCurrentUser();
+        Optional<Long> conversationId = findConversationId(user.getId(), otherUserId);
+        if (conversationId.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        // fetch one extra message to know whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<MessageDTO> data;
+        if (cursor == null || cursor.isBlank()) {
+            data = messageRepository.findThreadFirstPage(conversationId.get(), limit);
+        } else {
+            KeysetCursor before = KeysetCursor.decode(cursor);
+            data = messageRepository.findThreadBefore(conversationId.get(), before.getTimestamp(), before.getId(), limit);
+        }
+
+        String nextCursor = null;
+        if (data.size() > pageSize) {
+            data = data.subList(0, pageSize);
+            MessageDTO last = data.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getSentAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(data, nextCursor);
     }
 
     @Transactional
@@ -78,6 +177,20 @@ public class MessageService {
         messageRepository.deleteById(id);
     }
 
+    private Optional<Long> findConversationId(Long userId, Long otherUserId) {
+        return conversationRepository.findIdByUsers(Math.min(userId, otherUserId), Math.max(userId, otherUserId));
+    }
+
+    private Long getOrCreateConversationId(Long userId, Long otherUserId) {
+        Long low = Math.min(userId, otherUserId);
+        Long high = Math.max(userId, otherUserId);
+        return conversationRepository.findIdByUsers(low, high).orElseGet(() -> {
+            conversationRepository.insertIfAbsent(low, high);
+            return conversationRepository.findIdByUsersForShare(low, high)
+                    .orElseThrow(() -> new RuntimeException("Conversation not found"));
+        });
+    }
+
     private MessageDTO convertToDTO(Message message) {
         MessageDTO dto = new MessageDTO();
         dto.setId(message.getId());
@@ -0,0 +1,281 @@
+package com.journeymate.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.journeymate.dto.ImageGcStats;
+import com.journeymate.exception.CustomException;
+import com.journeymate.repository.image.StoredImageRepository;
+import com.journeymate.repository.trip.TripArchiveRepository;
+import com.journeymate.repository.trip.TripImageRepository;
+import com.journeymate.repository.user.UserRepository;
+import com.journeymate.storage.ImageStore;
+import com.journeymate.utils.ImageVariant;
+
+/**
+ * Deletes images in the store that no row references: uploads from transactions
+ * that rolled back, staging files left by a crash, and variants whose original is gone.
+ * Only files older than the grace period are considered, so in-flight uploads are
+ * never touched, and candidates are checked against the database in batches.
+ */
+@Service
+public class OrphanImageSweeper {
+
+    private static final String PROFILE_DIR = "profiles/";
+    // where uploads were staged before the ImageStore had its own staging area
+    private static final String LEGACY_STAGING_DIR = "cas/tmp/";
+
+    private final Logger logger = LoggerFactory.getLogger(OrphanImageSweeper.class);
+
+    private final TripImageRepository tripImageRepository;
+    private final TripArchiveRepository tripArchiveRepository;
+    private final UserRepository userRepository;
+    private final StoredImageRepository storedImageRepository;
+    private final StoredImageService storedImageService;
+    private final ImageStore imageStore;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${upload.dir}")
+    private String uploadDir;
+
+    @Value("${app.images.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.images.gc.dry-run:false}")
+    private boolean dryRun;
+
+    @Value("${app.images.gc.grace-hours:24}")
+    private long graceHours;
+
+    @Value("${app.images.gc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.images.gc.batch-pause-ms:200}")
+    private long batchPauseMillis;
+
+    @Value("${app.images.gc.max-deletes-per-second:50}")
+    private int maxDeletesPerSecond;
+
+    private long runs;
+    private LocalDateTime lastRunStartedAt;
+    private long lastRunMillis;
+    private boolean lastRunDryRun;
+    private long lastRunFilesScanned;
+    private long lastRunOrphansFound;
+    private long lastRunOrphanBytes;
+    private long totalFilesDeleted;
+    private long totalBytesReclaimed;
+
+    public OrphanImageSweeper(TripImageRepository tripImageRepository, TripArchiveRepository tripArchiveRepository,
+                              UserRepository userRepository, StoredImageRepository storedImageRepository,
+                              StoredImageService storedImageService, ImageStore imageStore) {
+        this.tripImageRepository = tripImageRepository;
+        this.tripArchiveRepository = tripArchiveRepository;
+        this.userRepository = userRepository;
+        this.storedImageRepository = storedImageRepository;
+        this.storedImageService = storedImageService;
+        this.imageStore = imageStore;
+    }
+
+    @Scheduled(cron = "${app.images.gc.cron:0 30 3 * * *}")
+    public void scheduledSweep() {
+        if (enabled && !running.get()) {
+            sweep(dryRun);
+        }
+    }
+
+    public ImageGcStats sweep(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new CustomException("An orphan sweep is already running", HttpStatus.CONFLICT);
+        }
+        try {
+            Run run = new Run(dryRun, System.currentTimeMillis() - Duration.ofHours(graceHours).toMillis());
+            LocalDateTime startedAt = LocalDateTime.now();
+            long start = System.currentTimeMillis();
+            walk(run);
+            synchronized (this) {
+                runs++;
+                lastRunStartedAt = startedAt;
+                lastRunMillis = System.currentTimeMillis() - start;
+                lastRunDryRun = dryRun;
+                lastRunFilesScanned = run.scanned;
+                lastRunOrphansFound = run.orphans;
+                lastRunOrphanBytes = run.orphanBytes;
+                totalFilesDeleted += run.deleted;
+                totalBytesReclaimed += run.reclaimed;
+            }
+            logger.info("Orphan sweep{} scanned {} files, found {} orphans ({} bytes), deleted {} ({} bytes) in {} ms",
+                    dryRun ? " (dry run)" : "", run.scanned, run.orphans, run.orphanBytes, run.deleted, run.reclaimed,
+                    lastRunMillis);
+            return getStats();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public synchronized ImageGcStats getStats() {
+        return new ImageGcStats(runs, lastRunStartedAt, lastRunMillis, lastRunDryRun, lastRunFilesScanned,
+                lastRunOrphansFound, lastRunOrphanBytes, totalFilesDeleted, totalBytesReclaimed);
+    }
+
+    private void walk(Run run) {
+        List<Candidate> batch = new ArrayList<>(batchSize);
+        try {
+            imageStore.walk((key, size, lastModified) -> {
+                run.scanned++;
+                if (lastModified > run.cutoff) {
+                    return;
+                }
+                Candidate candidate = new Candidate(key, size);
+                if (key.startsWith(ImageStore.STAGING_PREFIX) || key.startsWith(LEGACY_STAGING_DIR)) {
+                    // staged uploads are promoted or discarded within one request
+                    remove(candidate, run);
+                    return;
+                }
+                batch.add(candidate);
+                if (batch.size() == batchSize) {
+                    checkBatch(batch, run);
+                    batch.clear();
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Orphan sweep aborted: {}", e.getMessage());
+        }
+        if (!batch.isEmpty()) {
+            checkBatch(batch, run);
+        }
+    }
+
+    private void checkBatch(List<Candidate> batch, Run run) {
+        List<String> imageUrls = new ArrayList<>(batch.size());
+        List<String> profileImages = new ArrayList<>(batch.size());
+        List<String> storageKeys = new ArrayList<>(batch.size());
+        for (Candidate candidate : batch) {
+            // rows not yet migrated to keys still hold upload.dir + key
+            imageUrls.add(candidate.key);
+            imageUrls.add(uploadDir + candidate.key);
+            storageKeys.add(candidate.key);
+            // profile images store the key, rows from before keys only the name under profiles/
+            profileImages.add(candidate.key);
+            if (candidate.key.startsWith(PROFILE_DIR)) {
+                profileImages.add(candidate.key.substring(PROFILE_DIR.length()));
+            }
+        }
+
+        Set<String> referenced = new HashSet<>();
+        List<String> imageUrlRefs = new ArrayList<>(tripImageRepository.findReferencedImageUrls(imageUrls));
+        // archived posts stay readable, so their images are still in use
+        imageUrlRefs.addAll(tripArchiveRepository.findReferencedImageUrls(imageUrls));
+        imageUrlRefs.forEach(imageUrl -> referenced
+                .add(imageUrl.startsWith(uploadDir) ? imageUrl.substring(uploadDir.length()) : imageUrl));
+        storedImageRepository.findReferencedStorageKeys(storageKeys).forEach(referenced::add);
+        Set<String> profileNames = new HashSet<>(userRepository.findReferencedProfileImages(profileImages));
+
+        for (Candidate candidate : batch) {
+            String profileName = candidate.key.startsWith(PROFILE_DIR) ? candidate.key.substring(PROFILE_DIR.length())
+                    : candidate.key;
+            if (referenced.contains(candidate.key) || profileNames.contains(candidate.key)
+                    || profileNames.contains(profileName) || hasOriginal(candidate.key)) {
+                continue;
+            }
+            remove(candidate, run);
+        }
+        pause(batchPauseMillis);
+    }
+
+    // variants go together with their original, so they are orphans only once it is gone
+    private boolean hasOriginal(String key) {
+        if (ImageVariant.variantStem(key.substring(key.lastIndexOf('/') + 1)) == null) {
+            return false;
+        }
+        try {
+            for (String related : imageStore.listRelated(key)) {
+                if (ImageVariant.variantStem(related.substring(related.lastIndexOf('/') + 1)) == null) {
+                    return true;
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return true;
+        }
+        return false;
+    }
+
+    private void remove(Candidate candidate, Run run) {
+        run.orphans++;
+        run.orphanBytes += candidate.size;
+        if (run.dryRun) {
+            logger.info("Orphan sweep (dry run) would delete {}", candidate.key);
+            return;
+        }
+        try {
+            boolean deleted;
+            if (candidate.key.startsWith(StoredImageService.STORE_DIR) && !candidate.key.startsWith(LEGACY_STAGING_DIR)) {
+                // an upload promoting the same digest may be about to commit a reference to these bytes
+                deleted = storedImageService.deleteOrphan(candidate.key, run.cutoff);
+            } else {
+                // reused since the walk, keep it
+                deleted = imageStore.exists(candidate.key) && imageStore.lastModified(candidate.key) <= run.cutoff
+                        && imageStore.delete(candidate.key);
+            }
+            if (deleted) {
+                run.deleted++;
+                run.reclaimed += candidate.size;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Orphan sweep failed to delete {}: {}", candidate.key, e.getMessage());
+        }
+        if (maxDeletesPerSecond > 0) {
+            pause(1000L / maxDeletesPerSecond);
+        }
+    }
+
+    private void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Run {
+        private final boolean dryRun;
+        private final long cutoff;
+        private long scanned;
+        private long orphans;
+        private long orphanBytes;
+        private long deleted;
+        private long reclaimed;
+
+        Run(boolean dryRun, long cutoff) {
+            this.dryRun = dryRun;
+            this.cutoff = cutoff;
+        }
+    }
+
+    private static class Candidate {
+        private final String key;
+        private final long size;
+
+        Candidate(String key, long size) {
+            this.key = key;
+            this.size = size;
+        }
+    }
+}
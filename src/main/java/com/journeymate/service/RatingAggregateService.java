@@ -0,0 +1,63 @@
+package com.journeymate.service;
+
+import java.time.LocalDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.journeymate.cache.TripFeedCache;
+import com.journeymate.repository.trip.TripPostRepository;
+
+/**
+ * Rebuilds trip_posts.rating_sum / rating_count from trip_feedback. Needed once
+ * after the columns are introduced and afterwards only to repair drift.
+ */
+@Service
+public class RatingAggregateService {
+
+    private final Logger logger = LoggerFactory.getLogger(RatingAggregateService.class);
+
+    private final TripPostRepository tripPostRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TripFeedCache tripFeedCache;
+
+    @Value("${app.rating.reconcile-on-startup:false}")
+    private boolean reconcileOnStartup;
+
+    @Value("${app.rating.reconcile-chunk-size:1000}")
+    private int chunkSize;
+
+    public RatingAggregateService(TripPostRepository tripPostRepository, TransactionTemplate transactionTemplate,
+                                  TripFeedCache tripFeedCache) {
+        this.tripPostRepository = tripPostRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.tripFeedCache = tripFeedCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (reconcileOnStartup) {
+            reconcile();
+        }
+    }
+
+    public int reconcile() {
+        long maxId = tripPostRepository.findMaxId();
+        LocalDateTime modifiedAt = LocalDateTime.now();
+        int updated = 0;
+        // one short transaction per id range so feedback writes are never blocked for long
+        for (long fromId = 0; fromId < maxId; fromId += chunkSize) {
+            long from = fromId;
+            Integer rows = transactionTemplate.execute(status -> tripPostRepository.reconcileRatings(from, from + chunkSize, modifiedAt));
+            updated += rows == null ? 0 : rows;
+        }
+        tripFeedCache.invalidateAll();
+        logger.info("Repaired drifted rating aggregates of {} trip posts", updated);
+        return updated;
+    }
+}
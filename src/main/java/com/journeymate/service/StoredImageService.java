@@ -0,0 +1,275 @@
+package com.journeymate.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.journeymate.model.image.StoredImage;
+import com.journeymate.repository.image.StoredImageRepository;
+import com.journeymate.storage.ImageStore;
+import com.journeymate.utils.ImageVariant;
+
+import lombok.Getter;
+
+/**
+ * Content-addressed image bytes: every upload is hashed while it streams to disk and
+ * kept once per SHA-256 digest under the key {@code cas/<digest>.<ext>}. stored_images
+ * counts the references; bytes are removed after the commit that drops the last one.
+ *
+ * Uploads go through two steps so no disk I/O happens while a connection is held:
+ * {@link #stage} writes and hashes into a staging file before the transaction, and
+ * {@link #promote} moves the staged file under its key just before commit.
+ */
+@Service
+public class StoredImageService {
+
+    public static final String STORE_DIR = "cas/";
+
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+    private static final int LOCK_STRIPES = 64;
+    // a file reused this recently may belong to a transaction that has not committed its reference yet
+    private static final Duration REUSE_GRACE = Duration.ofMinutes(10);
+
+    private final Logger logger = LoggerFactory.getLogger(StoredImageService.class);
+
+    private final StoredImageRepository storedImageRepository;
+    private final ImageVariantService imageVariantService;
+    private final ImageStore imageStore;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public StoredImageService(StoredImageRepository storedImageRepository, ImageVariantService imageVariantService,
+                              ImageStore imageStore) {
+        this.storedImageRepository = storedImageRepository;
+        this.imageVariantService = imageVariantService;
+        this.imageStore = imageStore;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Streams the upload into a staging file and hashes it on the way. Touches no
+     * database state, so it runs before the transaction and off the request thread.
+     */
+    public StagedImage stage(MultipartFile file) throws IOException {
+        Path temp = imageStore.createStagingFile();
+        try {
+            MessageDigest sha256 = newDigest();
+            long size = 0;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), sha256);
+                 ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long transferred;
+                while ((transferred = out.transferFrom(source, size, TRANSFER_CHUNK)) > 0) {
+                    size += transferred;
+                }
+            }
+            String digest = HexFormat.of().formatHex(sha256.digest());
+            String key = STORE_DIR + digest + extensionOf(file.getOriginalFilename());
+            return new StagedImage(digest, key, size, MediaTypeFactory.getMediaType(key).map(Object::toString).orElse(null),
+                    temp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Takes a reference on the staged upload. The same bytes uploaded before, possibly
+     * under another extension, keep the key they were first stored under.
+     */
+    public void acquire(StagedImage image) {
+        storedImageRepository.acquire(image.getDigest(), image.getKey(), image.getContentType(), image.getSize());
+        storedImageRepository.findStorageKey(image.getDigest()).ifPresent(key -> image.key = key);
+    }
+
+    /**
+     * Takes another reference on content already in the store, for rows that point at an
+     * existing key instead of a new upload. Returns the digest, or null when no stored
+     * image lives under the key.
+     */
+    public String acquireExisting(String key) {
+        String digest = digestOf(key);
+        return storedImageRepository.incrementRefCount(digest, key) == 0 ? null : digest;
+    }
+
+    /**
+     * Moves a staged file under its content address, or marks the existing copy as in use.
+     * A rename within the store, cheap enough to run in beforeCommit.
+     */
+    public void promote(StagedImage image) throws IOException {
+        ReentrantLock lock = lockFor(image.getDigest());
+        lock.lock();
+        try {
+            if (imageStore.exists(image.getKey())) {
+                // marks the bytes as in use so a concurrent release does not remove them
+                imageStore.touch(image.getKey());
+                Files.deleteIfExists(image.getStagedFile());
+            } else if (imageStore.put(image.getStagedFile(), image.getKey())) {
+                image.created = true;
+            } else {
+                throw new IOException("Could not store " + image.getKey());
+            }
+            image.promoted = true;
+            image.modifiedMillis = imageStore.lastModified(image.getKey());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Undoes {@link #stage}/{@link #promote} for an upload whose transaction did not
+     * commit. Safe to call more than once.
+     */
+    public void discard(StagedImage image) {
+        try {
+            Files.deleteIfExists(image.getStagedFile());
+        } catch (IOException e) {
+            logger.warn("Failed to delete staged upload {}: {}", image.getStagedFile(), e.getMessage());
+        }
+        if (!image.created) {
+            return;
+        }
+        ReentrantLock lock = lockFor(image.getDigest());
+        lock.lock();
+        try {
+            // a different mtime means another upload reused the file in the meantime
+            if (imageStore.exists(image.getKey()) && imageStore.lastModified(image.getKey()) == image.modifiedMillis
+                    && !storedImageRepository.existsById(image.getDigest())) {
+                imageStore.delete(image.getKey());
+            }
+            image.created = false;
+        } catch (IOException e) {
+            logger.warn("Failed to discard {}: {}", image.getKey(), e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops one reference and returns the storage key when it was the last, so the
+     * caller can remove the bytes with {@link #deleteUnreferenced} after commit.
+     */
+    public String release(String digest) {
+        StoredImage storedImage = storedImageRepository.findById(digest).orElse(null);
+        if (storedImage == null) {
+            return null;
+        }
+        storedImageRepository.decrementRefCount(digest);
+        if (storedImageRepository.deleteIfUnreferenced(digest) == 0) {
+            return null;
+        }
+        return storedImage.getStorageKey();
+    }
+
+    public void deleteUnreferenced(String digest, String key) {
+        ReentrantLock lock = lockFor(digest);
+        lock.lock();
+        try {
+            if (storedImageRepository.existsById(digest) || !imageStore.exists(key)) {
+                return;
+            }
+            if (imageStore.lastModified(key) > System.currentTimeMillis() - REUSE_GRACE.toMillis()) {
+                // reused by an upload that may still commit; the orphan sweep picks it up later if not
+                return;
+            }
+            imageStore.delete(key);
+            imageVariantService.deleteVariants(key);
+        } catch (IOException e) {
+            logger.warn("Failed to delete {}: {}", key, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes a file under {@link #STORE_DIR} that the orphan sweep found unreferenced,
+     * unless it was touched after {@code cutoffMillis} or has gained a stored_images row.
+     * Checked and deleted under the digest's lock, so a concurrent {@link #promote}
+     * either sees the file gone and writes it again, or touches it before the check.
+     */
+    public boolean deleteOrphan(String key, long cutoffMillis) throws IOException {
+        String digest = digestOf(key);
+        ReentrantLock lock = lockFor(digest);
+        lock.lock();
+        try {
+            if (!imageStore.exists(key) || imageStore.lastModified(key) > cutoffMillis
+                    || storedImageRepository.existsById(digest)) {
+                return false;
+            }
+            return imageStore.delete(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // cas/<digest>.<ext> and its variants cas/<digest>-<suffix>.<ext>
+    private static String digestOf(String key) {
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        String stem = ImageVariant.variantStem(name);
+        if (stem != null) {
+            return stem;
+        }
+        int dot = name.indexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    private ReentrantLock lockFor(String digest) {
+        return locks[Math.floorMod(digest.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static String extensionOf(String fileName) {
+        String extension = StringUtils.getFilenameExtension(fileName);
+        if (extension == null || !extension.matches("[A-Za-z0-9]{1,5}")) {
+            return "";
+        }
+        return "." + extension.toLowerCase(Locale.ROOT);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Getter
+    public static class StagedImage {
+        private final String digest;
+        private volatile String key;
+        private final long size;
+        private final String contentType;
+        private final Path stagedFile;
+        private volatile boolean promoted;
+        private volatile boolean created;
+        private volatile long modifiedMillis;
+
+        StagedImage(String digest, String key, long size, String contentType, Path stagedFile) {
+            this.digest = digest;
+            this.key = key;
+            this.size = size;
+            this.contentType = contentType;
+            this.stagedFile = stagedFile;
+        }
+    }
+}
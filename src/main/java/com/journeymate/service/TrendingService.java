@@ -0,0 +1,207 @@
+package com.journeymate.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.journeymate.dto.TripActivity;
+import com.journeymate.model.trip.TrendingWatermark;
+import com.journeymate.model.trip.TripTrendingScore;
+import com.journeymate.repository.trip.JoinRequestRepository;
+import com.journeymate.repository.trip.SavedPostRepository;
+import com.journeymate.repository.trip.TrendingWatermarkRepository;
+import com.journeymate.repository.trip.TripFeedbackRepository;
+import com.journeymate.repository.trip.TripTrendingScoreRepository;
+
+/**
+ * Trending score per post: saves, join requests and ratings, each decaying with a
+ * half-life. Scores use forward decay, every event counts w * e^(lambda * (t - LANDMARK)),
+ * so an existing score never has to be touched again when time passes, only when new
+ * activity arrives. Each run folds in the activity since the watermark and nothing else,
+ * keeping the cost proportional to recent activity rather than history. The sum is
+ * stored as a logarithm so it cannot overflow however far t moves from the landmark.
+ */
+@Service
+public class TrendingService {
+
+    private static final LocalDateTime LANDMARK = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final Logger logger = LoggerFactory.getLogger(TrendingService.class);
+
+    private final SavedPostRepository savedPostRepository;
+    private final JoinRequestRepository joinRequestRepository;
+    private final TripFeedbackRepository tripFeedbackRepository;
+    private final TripTrendingScoreRepository tripTrendingScoreRepository;
+    private final TrendingWatermarkRepository trendingWatermarkRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.trending.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.trending.half-life-hours:48}")
+    private double halfLifeHours;
+
+    @Value("${app.trending.weight.save:3}")
+    private double saveWeight;
+
+    @Value("${app.trending.weight.join:5}")
+    private double joinWeight;
+
+    // a 5 star rating counts this much, lower ratings proportionally less
+    @Value("${app.trending.weight.rating:2}")
+    private double ratingWeight;
+
+    @Value("${app.trending.initial-lookback-days:14}")
+    private long initialLookbackDays;
+
+    // posts whose decayed score falls below this leave the table
+    @Value("${app.trending.min-score:0.05}")
+    private double minScore;
+
+    // activity younger than this may still be in an uncommitted transaction, it waits for the next run
+    @Value("${app.trending.commit-lag-seconds:30}")
+    private long commitLagSeconds;
+
+    public TrendingService(SavedPostRepository savedPostRepository, JoinRequestRepository joinRequestRepository,
+                           TripFeedbackRepository tripFeedbackRepository,
+                           TripTrendingScoreRepository tripTrendingScoreRepository,
+                           TrendingWatermarkRepository trendingWatermarkRepository,
+                           TransactionTemplate transactionTemplate) {
+        this.savedPostRepository = savedPostRepository;
+        this.joinRequestRepository = joinRequestRepository;
+        this.tripFeedbackRepository = tripFeedbackRepository;
+        this.tripTrendingScoreRepository = tripTrendingScoreRepository;
+        this.trendingWatermarkRepository = trendingWatermarkRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recomputeOnStartup() {
+        scheduledRecompute();
+    }
+
+    @Scheduled(cron = "${app.trending.cron:0 */5 * * * *}")
+    public void scheduledRecompute() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            recompute();
+        } catch (DataIntegrityViolationException e) {
+            // another instance created the watermark row first, it does this window
+            logger.info("Trending recompute skipped: {}", e.getMessage());
+        }
+    }
+
+    public List<Long> findTopPostIds(int limit) {
+        return tripTrendingScoreRepository.findTopPostIds(PageRequest.of(0, limit));
+    }
+
+    /**
+     * Folds activity since the last run into the scores. Returns the number of posts
+     * whose score changed.
+     */
+    public int recompute() {
+        long start = System.currentTimeMillis();
+        Integer updated = transactionTemplate.execute(status -> {
+            LocalDateTime until = LocalDateTime.now().minusSeconds(commitLagSeconds);
+            TrendingWatermark watermark = trendingWatermarkRepository.lock().orElseGet(() -> {
+                TrendingWatermark created = new TrendingWatermark();
+                created.setId(TrendingWatermark.ID);
+                created.setProcessedUntil(until.minusDays(initialLookbackDays));
+                return created;
+            });
+            LocalDateTime from = watermark.getProcessedUntil();
+            if (!until.isAfter(from)) {
+                return 0;
+            }
+
+            Map<Long, Delta> deltas = new HashMap<>();
+            savedPostRepository.findActivityBetween(from, until).forEach(a -> add(deltas, a, saveWeight));
+            joinRequestRepository.findActivityBetween(from, until).forEach(a -> add(deltas, a, joinWeight));
+            tripFeedbackRepository.findActivityBetween(from, until)
+                    .forEach(a -> add(deltas, a, ratingWeight * a.getRating() / 5.0));
+
+            List<TripTrendingScore> scores = new ArrayList<>(deltas.size());
+            Map<Long, TripTrendingScore> existing = new HashMap<>();
+            tripTrendingScoreRepository.findAllById(deltas.keySet()).forEach(s -> existing.put(s.getTripPostId(), s));
+            LocalDateTime now = LocalDateTime.now();
+            deltas.forEach((postId, delta) -> {
+                TripTrendingScore score = existing.get(postId);
+                if (score == null) {
+                    score = new TripTrendingScore();
+                    score.setTripPostId(postId);
+                    score.setLogScore(delta.logScore);
+                } else {
+                    score.setLogScore(logAddExp(score.getLogScore(), delta.logScore));
+                }
+                score.setLastActivityDate(delta.lastActivity);
+                score.setModifiedDate(now);
+                scores.add(score);
+            });
+            tripTrendingScoreRepository.saveAll(scores);
+            tripTrendingScoreRepository.deleteByLogScoreBelow(Math.log(minScore) + decayExponent(now));
+
+            watermark.setProcessedUntil(until);
+            trendingWatermarkRepository.save(watermark);
+            return scores.size();
+        });
+        int count = updated == null ? 0 : updated;
+        if (count > 0) {
+            logger.info("Updated trending scores of {} posts in {} ms", count, System.currentTimeMillis() - start);
+        }
+        return count;
+    }
+
+    private void add(Map<Long, Delta> deltas, TripActivity activity, double weight) {
+        if (weight <= 0 || activity.getPostId() == null || activity.getAt() == null) {
+            return;
+        }
+        double logContribution = Math.log(weight) + decayExponent(activity.getAt());
+        Delta delta = deltas.get(activity.getPostId());
+        if (delta == null) {
+            deltas.put(activity.getPostId(), new Delta(logContribution, activity.getAt()));
+        } else {
+            delta.logScore = logAddExp(delta.logScore, logContribution);
+            if (activity.getAt().isAfter(delta.lastActivity)) {
+                delta.lastActivity = activity.getAt();
+            }
+        }
+    }
+
+    // lambda * (t - LANDMARK), lambda = ln 2 / half-life
+    private double decayExponent(LocalDateTime at) {
+        double hours = Duration.between(LANDMARK, at).toMillis() / 3_600_000.0;
+        return Math.log(2) * hours / halfLifeHours;
+    }
+
+    // log(e^a + e^b) without leaving double range
+    private static double logAddExp(double a, double b) {
+        double max = Math.max(a, b);
+        return max + Math.log1p(Math.exp(Math.min(a, b) - max));
+    }
+
+    private static class Delta {
+        private double logScore;
+        private LocalDateTime lastActivity;
+
+        Delta(double logScore, LocalDateTime lastActivity) {
+            this.logScore = logScore;
+            this.lastActivity = lastActivity;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.journeymate.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.journeymate.dto.CursorPage;
+import com.journeymate.dto.TripDetailRow;
+import com.journeymate.dto.TripPostDTO;
+import com.journeymate.model.user.User;
+import com.journeymate.repository.trip.TripArchiveRepository;
+import com.journeymate.utils.ImageVariant;
+import com.journeymate.utils.KeysetCursor;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Moves posts that expired, or were deleted, more than {@code app.archive.after-days}
+ * ago out of trip_posts into trip_posts_archive, together with their images, feedback,
+ * saves and join requests, so the hot tables only grow with live content. Each batch is
+ * its own short transaction and batches are spaced out to keep the load flat.
+ *
+ * Archived image rows keep their stored_images references, so the files stay in place
+ * and archived posts remain readable through {@link #getArchivedTripPost}.
+ */
+@Service
+// the archive tables are copied from the hot ones, so schema update must have run first
+@DependsOn("entityManagerFactory")
+public class TripArchiveService {
+
+    private final Logger logger = LoggerFactory.getLogger(TripArchiveService.class);
+
+    private final TripArchiveRepository tripArchiveRepository;
+    private final ContextService contextService;
+    private final ImageService imageService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${app.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.archive.after-days:30}")
+    private int afterDays;
+
+    @Value("${app.archive.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.archive.batch-pause-ms:500}")
+    private long batchPauseMillis;
+
+    public TripArchiveService(TripArchiveRepository tripArchiveRepository, ContextService contextService,
+                              ImageService imageService, TransactionTemplate transactionTemplate) {
+        this.tripArchiveRepository = tripArchiveRepository;
+        this.contextService = contextService;
+        this.imageService = imageService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        tripArchiveRepository.createTables();
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 0 3 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    public int archive() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            LocalDate expiredBefore = LocalDate.now().minusDays(afterDays);
+            LocalDateTime deletedBefore = LocalDateTime.now().minusDays(afterDays);
+            int archived = archiveBatches(() -> tripArchiveRepository.lockExpiredPostIds(expiredBefore, batchSize));
+            archived += archiveBatches(() -> tripArchiveRepository.lockDeletedPostIds(deletedBefore, batchSize));
+            logger.info("Archived {} trip posts in {} ms", archived, System.currentTimeMillis() - start);
+            return archived;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int archiveBatches(Supplier<List<Long>> nextBatch) {
+        int archived = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> {
+                List<Long> ids = nextBatch.get();
+                return ids.isEmpty() ? 0 : tripArchiveRepository.archive(ids);
+            });
+            if (moved == null || moved == 0) {
+                return archived;
+            }
+            archived += moved;
+            pause(batchPauseMillis);
+        }
+    }
+
+    public TripPostDTO getArchivedTripPost(String uid) {
+        List<TripDetailRow> rows = tripArchiveRepository.findDetailRowsByUid(uid);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Trip post not found");
+        }
+        return TripPostDTO.convertToDTO(rows, imageUrl -> imageService.toClientImage(imageUrl, ImageVariant.DETAIL));
+    }
+
+    public CursorPage<TripPostDTO> getArchivedTripPostsByUser(String cursor, Integer size) {
+        int pageSize = size == null ? TripService.DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, TripService.MAX_PAGE_SIZE));
+        Long before = cursor == null || cursor.isBlank() ? null : KeysetCursor.decodeId(cursor);
+        User user = contextService.getCurrentUser();
+        List<TripPostDTO> data = tripArchiveRepository.findByCreater(user.getId(), before, pageSize + 1);
+
+        boolean hasMore = data.size() > pageSize;
+        if (hasMore) {
+            data = data.subList(0, pageSize);
+        }
+        data.forEach(t -> t.setImage(imageService.toClientImage(t.getImage(), ImageVariant.THUMBNAIL)));
+        String nextCursor = hasMore ? KeysetCursor.encodeId(data.get(data.size() - 1).getId()) : null;
+        return new CursorPage<>(data, nextCursor);
+    }
+
+    private void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
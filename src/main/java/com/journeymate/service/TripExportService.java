@@ -0,0 +1,145 @@
+package com.journeymate.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.journeymate.dto.TripExportRow;
+import com.journeymate.exception.ValidationException;
+import com.journeymate.repository.trip.TripPostRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Streams every trip post (deleted ones included) ordered by id. Rows come from a
+ * forward-only JDBC cursor and are written as they are read, so memory does not
+ * depend on the table size. A broken download is resumed with the last id received.
+ */
+@Service
+public class TripExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final int FLUSH_EVERY = 500;
+    private static final String[] CSV_HEADER = { "id", "uid", "createrUid", "createrName", "title", "description",
+            "destination", "price", "gender", "personType", "minAge", "maxAge", "personCount", "tripStartingDate",
+            "tripEndingDate", "postExpireDate", "tripDuration", "tripTransportation", "deleted", "ratingSum",
+            "ratingCount", "createdDate", "modifiedDate" };
+
+    private final Logger logger = LoggerFactory.getLogger(TripExportService.class);
+
+    private final TripPostRepository tripPostRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // a full export runs far longer than the app-wide async request timeout allows
+    @Value("${app.export.timeout-minutes:120}")
+    private long timeoutMinutes;
+
+    public TripExportService(TripPostRepository tripPostRepository, EntityManager entityManager,
+                             ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.tripPostRepository = tripPostRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public long getTimeoutMillis() {
+        return TimeUnit.MINUTES.toMillis(timeoutMinutes);
+    }
+
+    public static String normalizeFormat(String format) {
+        String normalized = format == null ? FORMAT_NDJSON : format.toLowerCase();
+        if (!FORMAT_NDJSON.equals(normalized) && !FORMAT_CSV.equals(normalized)) {
+            throw new ValidationException("Unsupported export format " + format);
+        }
+        return normalized;
+    }
+
+    public StreamingResponseBody export(String format, Long afterId) {
+        boolean csv = FORMAT_CSV.equals(normalizeFormat(format));
+        long from = afterId == null ? 0 : afterId;
+        return out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (csv) {
+                writeCsvLine(writer, (Object[]) CSV_HEADER);
+            }
+            long[] written = new long[1];
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<TripExportRow> rows = tripPostRepository.streamExportRowsAfter(from)) {
+                    rows.forEach(row -> {
+                        try {
+                            if (csv) {
+                                writeCsv(writer, row);
+                            } else {
+                                writer.write(objectMapper.writeValueAsString(row));
+                                writer.write('\n');
+                            }
+                            if (++written[0] % FLUSH_EVERY == 0) {
+                                writer.flush();
+                                // projections are not managed, this only drops anything else the session picked up
+                                entityManager.clear();
+                            }
+                        } catch (JsonProcessingException e) {
+                            throw new IllegalStateException(e);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            });
+            writer.flush();
+            logger.info("Exported {} trip posts after id {} as {}", written[0], from, csv ? FORMAT_CSV : FORMAT_NDJSON);
+        };
+    }
+
+    private void writeCsv(Writer writer, TripExportRow row) throws IOException {
+        writeCsvLine(writer, row.getId(), row.getUid(), row.getCreaterUid(), row.getCreaterName(), row.getTitle(),
+                row.getDescription(), row.getDestination(), row.getPrice(), row.getGender(), row.getPersonType(),
+                row.getMinAge(), row.getMaxAge(), row.getPersonCount(), row.getTripStartingDate(),
+                row.getTripEndingDate(), row.getPostExpireDate(), row.getTripDuration(), row.getTripTransportation(),
+                row.isDeleted(), row.getRatingSum(), row.getRatingCount(), row.getCreatedDate(), row.getModifiedDate());
+    }
+
+    private void writeCsvLine(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeCsvValue(writer, values[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCsvValue(Writer writer, String value) throws IOException {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -1,15 +1,18 @@
 package com.journeymate.service;
 
 import com.journeymate.dto.TripFeedbackDTO;
+import com.journeymate.event.TripPostEvent;
 import com.journeymate.model.trip.TripFeedback;
 import com.journeymate.model.trip.TripPost;
 import com.journeymate.model.user.User;
 import com.journeymate.repository.trip.TripFeedbackRepository;
 import com.journeymate.repository.trip.TripPostRepository;
 import com.journeymate.repository.user.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -18,13 +21,16 @@ public class TripFeedbackService {
     private final TripFeedbackRepository tripFeedbackRepository;
     private final TripPostRepository tripPostRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public TripFeedbackService(TripFeedbackRepository tripFeedbackRepository,
                              TripPostRepository tripPostRepository,
-                             UserRepository userRepository) {
+                             UserRepository userRepository,
+                             ApplicationEventPublisher eventPublisher) {
         this.tripFeedbackRepository = tripFeedbackRepository;
         this.tripPostRepository = tripPostRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -50,6 +56,8 @@ public class TripFeedbackService {
         feedback.setComment(feedbackDTO.getComment());
         
         TripFeedback savedFeedback = tripFeedbackRepository.save(feedback);
+        tripPostRepository.adjustRating(tripPost.getId(), feedback.getRating(), 1, LocalDateTime.now());
+        eventPublisher.publishEvent(new TripPostEvent(TripPostEvent.Type.RATED, tripPost));
         return convertToDTO(savedFeedback);
     }
 
@@ -97,6 +105,8 @@ public class TripFeedbackService {
             if (feedbackDTO.getRating() < 1 || feedbackDTO.getRating() > 5) {
                 throw new RuntimeException("Rating must be between 1 and 5");
             }
+            tripPostRepository.adjustRating(feedback.getTripPost().getId(),
+                    feedbackDTO.getRating() - feedback.getRating(), 0, LocalDateTime.now());
             feedback.setRating(feedbackDTO.getRating());
         }
         
@@ -105,12 +115,17 @@ public class TripFeedbackService {
         }
 
         TripFeedback updatedFeedback = tripFeedbackRepository.save(feedback);
+        eventPublisher.publishEvent(new TripPostEvent(TripPostEvent.Type.RATED, feedback.getTripPost()));
         return convertToDTO(updatedFeedback);
     }
 
     @Transactional
     public void deleteFeedback(Long id) {
-        tripFeedbackRepository.deleteById(id);
+        TripFeedback feedback = tripFeedbackRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Feedback not found"));
+        tripPostRepository.adjustRating(feedback.getTripPost().getId(), -feedback.getRating(), -1, LocalDateTime.now());
+        eventPublisher.publishEvent(new TripPostEvent(TripPostEvent.Type.RATED, feedback.getTripPost()));
+        tripFeedbackRepository.delete(feedback);
     }
 
     private TripFeedbackDTO convertToDTO(TripFeedback feedback) {
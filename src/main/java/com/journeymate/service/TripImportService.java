@@ -0,0 +1,209 @@
+package com.journeymate.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.journeymate.dto.TripImportReport;
+import com.journeymate.dto.TripImportRow;
+import com.journeymate.dto.TripRequestDTO;
+import com.journeymate.event.TripPostEvent;
+import com.journeymate.exception.ValidationException;
+import com.journeymate.model.trip.TripImage;
+import com.journeymate.model.trip.TripPost;
+import com.journeymate.model.user.User;
+import com.journeymate.repository.trip.TripPostRepository;
+import com.journeymate.repository.user.UserRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Bulk import of partner trip catalogs from NDJSON, one TripImportRow per line.
+ * Rows are validated with the same rules as the create endpoint and written one
+ * chunk per transaction, so trip_posts/trip_images go out as JDBC batches. If a
+ * chunk fails at the database its rows are retried one by one to find the bad ones.
+ */
+@Service
+public class TripImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(TripImportService.class);
+
+    private final TripPostRepository tripPostRepository;
+    private final UserRepository userRepository;
+    private final ContextService contextService;
+    private final ImageService imageService;
+    private final StoredImageService storedImageService;
+    private final ImageVariantService imageVariantService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.import.chunk-size:500}")
+    private int chunkSize;
+
+    public TripImportService(TripPostRepository tripPostRepository, UserRepository userRepository,
+                             ContextService contextService, ImageService imageService,
+                             StoredImageService storedImageService, ImageVariantService imageVariantService, ApplicationEventPublisher eventPublisher,
+                             TransactionTemplate transactionTemplate, EntityManager entityManager,
+                             ObjectMapper objectMapper) {
+        this.tripPostRepository = tripPostRepository;
+        this.userRepository = userRepository;
+        this.contextService = contextService;
+        this.imageService = imageService;
+        this.storedImageService = storedImageService;
+        this.imageVariantService = imageVariantService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    public TripImportReport importNdjson(InputStream in) throws IOException {
+        Long createrId = contextService.getCurrentUserId();
+        TripImportReport report = new TripImportReport();
+        List<ParsedRow> chunk = new ArrayList<>(chunkSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                TripImportRow row = objectMapper.readValue(line, TripImportRow.class);
+                validate(row);
+                chunk.add(new ParsedRow(lineNumber, row));
+            } catch (JsonProcessingException e) {
+                addError(report, lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+            } catch (ValidationException e) {
+                addError(report, lineNumber, e.getMessage());
+            }
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, createrId, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, createrId, report);
+        }
+        logger.info("Trip import finished: {} imported, {} failed", report.getImported(), report.getFailed());
+        return report;
+    }
+
+    private void validate(TripImportRow row) {
+        TripRequestDTO.validate(row);
+        if (row.getImages() != null) {
+            for (String key : row.getImages()) {
+                if (key == null || !imageService.exists(key)) {
+                    throw new ValidationException("Image not found: " + key);
+                }
+            }
+        }
+    }
+
+    private void writeChunk(List<ParsedRow> rows, Long createrId, TripImportReport report) {
+        long start = System.nanoTime();
+        int imported = 0;
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(rows, createrId));
+            imported = rows.size();
+        } catch (RuntimeException chunkError) {
+            logger.warn("Import chunk {} failed, retrying row by row: {}", report.getChunks().size() + 1,
+                    NestedExceptionUtils.getMostSpecificCause(chunkError).getMessage());
+            for (ParsedRow row : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(row), createrId));
+                    imported++;
+                } catch (RuntimeException rowError) {
+                    addError(report, row.line, NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                } finally {
+                    entityManager.clear();
+                }
+            }
+        } finally {
+            // the request-scoped session outlives each transaction, so drop what the chunk left behind
+            entityManager.clear();
+        }
+
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        double rowsPerSecond = Math.round(imported * 10_000.0 / millis) / 10.0;
+        report.setImported(report.getImported() + imported);
+        report.getChunks().add(new TripImportReport.Chunk(report.getChunks().size() + 1, rows.size(), imported, millis,
+                rowsPerSecond));
+        logger.info("Imported chunk {}: {}/{} rows in {} ms ({} rows/s)", report.getChunks().size(), imported,
+                rows.size(), millis, rowsPerSecond);
+    }
+
+    private void persist(List<ParsedRow> rows, Long createrId) {
+        User creater = userRepository.getReferenceById(createrId);
+        List<TripPost> posts = new ArrayList<>(rows.size());
+        List<String> storedImages = new ArrayList<>();
+        for (ParsedRow row : rows) {
+            TripPost tripPost = new TripPost();
+            TripRequestDTO.requestMapper(tripPost, row.row);
+            tripPost.setCreater(creater);
+            if (row.row.getImages() != null) {
+                for (String key : row.row.getImages()) {
+                    TripImage tripImage = new TripImage();
+                    tripImage.setImageUrl(key);
+                    tripImage.setDigest(acquire(key));
+                    tripImage.setTripPost(tripPost);
+                    tripPost.getImages().add(tripImage);
+                    storedImages.add(tripImage.getImageUrl());
+                }
+            }
+            posts.add(tripPost);
+        }
+        tripPostRepository.saveAll(posts);
+        tripPostRepository.flush();
+        imageVariantService.generateVariantsAfterCommit(storedImages);
+        posts.forEach(post -> eventPublisher.publishEvent(new TripPostEvent(TripPostEvent.Type.SAVED, post)));
+    }
+
+    // content-addressed bytes are shared, so the post takes a reference like an upload would
+    private String acquire(String key) {
+        if (!key.startsWith(StoredImageService.STORE_DIR)) {
+            return null;
+        }
+        String digest = storedImageService.acquireExisting(key);
+        if (digest == null) {
+            throw new ValidationException("Image not found: " + key);
+        }
+        return digest;
+    }
+
+    private void addError(TripImportReport report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new TripImportReport.RowError(line, message));
+        }
+    }
+
+    private static class ParsedRow {
+        private final long line;
+        private final TripImportRow row;
+
+        ParsedRow(long line, TripImportRow row) {
+            this.line = line;
+            this.row = row;
+        }
+    }
+}
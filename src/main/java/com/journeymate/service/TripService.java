@@ -1,27 +1,47 @@
 package com.journeymate.service;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.journeymate.cache.TripFeedCache;
+import com.journeymate.dto.CursorPage;
+import com.journeymate.dto.TripDetailRow;
+import com.journeymate.dto.TripFilterRequest;
+import com.journeymate.dto.TripFilterResult;
 import com.journeymate.dto.TripPostDTO;
+import com.journeymate.dto.TripPostVersion;
 import com.journeymate.dto.TripRequestDTO;
+import com.journeymate.event.TripPostEvent;
+import com.journeymate.exception.ValidationException;
 import com.journeymate.model.trip.TripImage;
 import com.journeymate.model.trip.TripPost;
 import com.journeymate.model.user.User;
 import com.journeymate.repository.trip.TripFeedbackRepository;
 import com.journeymate.repository.trip.TripImageRepository;
+import com.journeymate.repository.trip.TripPostFilterRepository;
 import com.journeymate.repository.trip.TripPostRepository;
-import com.journeymate.utils.CommonMethods;
+import com.journeymate.search.DestinationSuggestIndex;
+import com.journeymate.search.TripEligibilityIndex;
+import com.journeymate.search.TripIntervalIndex;
+import com.journeymate.search.TripIntervalIndex.Overlap;
+import com.journeymate.search.TripSearchIndex;
+import com.journeymate.search.TripSimilarityIndex;
+import com.journeymate.service.StoredImageService.StagedImage;
+import com.journeymate.utils.ImageVariant;
+import com.journeymate.utils.KeysetCursor;
 
 import lombok.RequiredArgsConstructor;
 
@@ -29,127 +49,250 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class TripService {
 
+	public static final int DEFAULT_PAGE_SIZE = 20;
+	public static final int MAX_PAGE_SIZE = 100;
+
+	private static final List<String> FILTER_FACETS = List.of(TripPostFilterRepository.FACET_GENDER,
+			TripPostFilterRepository.FACET_PERSON_TYPE, TripPostFilterRepository.FACET_TRANSPORTATION,
+			TripPostFilterRepository.FACET_PRICE);
+
 	private final TripPostRepository tripPostRepository;
 	private final TripFeedbackRepository tripFeedbackRepository;
 	private final TripImageRepository tripImageRepository;
 	private final ContextService contextService;
+	private final ImageService imageService;
+	private final TripFeedCache tripFeedCache;
+	private final TripSearchIndex tripSearchIndex;
+	private final TripIntervalIndex tripIntervalIndex;
+	private final DestinationSuggestIndex destinationSuggestIndex;
+	private final TrendingService trendingService;
+	private final TripSimilarityIndex tripSimilarityIndex;
+	private final TripEligibilityIndex tripEligibilityIndex;
+	private final ApplicationEventPublisher eventPublisher;
+	private final TransactionTemplate transactionTemplate;
 
-	@Value("${upload.dir}")
-	private String uploadDir;
-
-	@Transactional
+	// uploads are staged before the transaction so the connection is only held for the row writes
 	public void createTripPost(TripRequestDTO tripPostDTO, List<MultipartFile> images) {
+		TripRequestDTO.validate(tripPostDTO);
+		List<StagedImage> staged = imageService.stageUploads(images);
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				TripPost tripPost = new TripPost();
+				TripRequestDTO.requestMapper(tripPost, tripPostDTO);
+				tripPost.setCreater(this.contextService.getCurrentUser());
+				addImages(tripPost, staged);
 
-		TripPost tripPost = new TripPost();
-		TripRequestDTO.requestMapper(tripPost, tripPostDTO);
-		tripPost.setCreater(this.contextService.getCurrentUser());
-
-		// Handle images
-		if (images != null && !images.isEmpty()) {
-			for (MultipartFile file : images) {
-				if (!file.isEmpty()) {
-					try {
-						// ✅ Save file locally
-						String fileName = UUID.randomUUID() + "_" + file.getOriginalFilename();
-						Path filePath = Paths.get(uploadDir, fileName);
-						Files.createDirectories(filePath.getParent()); // ensure folder exists
-						Files.write(filePath, file.getBytes());
-
-						// ✅ Save file reference in DB
-						TripImage tripImage = new TripImage();
-						tripImage.setImageUrl(uploadDir + fileName);
-						tripImage.setTripPost(tripPost);
-						tripPost.getImages().add(tripImage);
-					} catch (IOException e) {
-						throw new RuntimeException("Failed to save image file", e);
-					}
-				}
-			}
+				tripPostRepository.save(tripPost);
+				eventPublisher.publishEvent(new TripPostEvent(TripPostEvent.Type.SAVED, tripPost));
+			});
+		} catch (RuntimeException e) {
+			imageService.discardStaged(staged);
+			throw e;
 		}
-
-		tripPostRepository.save(tripPost);
 	}
 
-	@Transactional
 	public void updateTripPost(String uid, TripRequestDTO tripPostDTO, List<MultipartFile> images) {
-		TripPost tripPost = tripPostRepository.findByUidAndDeletedFalse(uid)
-				.orElseThrow(() -> new RuntimeException("Trip post not found"));
+		TripRequestDTO.validate(tripPostDTO);
+		List<StagedImage> staged = imageService.stageUploads(images);
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				TripPost tripPost = tripPostRepository.findByUidAndDeletedFalse(uid)
+						.orElseThrow(() -> new RuntimeException("Trip post not found"));
 
-		TripRequestDTO.requestMapper(tripPost, tripPostDTO);
-
-		// delete previous image
-		if (!tripPost.getImages().isEmpty()) {
-			List<String> imageUrls = tripPost.getImages().stream().map(TripImage::getImageUrl).toList();
-			for (String imageUrl : imageUrls) {
-				// Extract local file path from the URL if needed
-				// Example: if the URL is like "/uploads/images/image1.jpg", map it to actual
-				// path
-				File imageFile = new File(imageUrl); // adjust path here
-
-				if (imageFile.exists()) {
-					boolean deleted = imageFile.delete();
-					if (deleted) {
-						System.out.println("Deleted: " + imageFile.getPath());
-					} else {
-						System.err.println("Failed to delete: " + imageFile.getPath());
+				TripRequestDTO.requestMapper(tripPost, tripPostDTO);
+				boolean imagesChanged = !tripPost.getImages().isEmpty() || !staged.isEmpty();
+
+				// release previous images, their files go after commit
+				if (!tripPost.getImages().isEmpty()) {
+					for (TripImage image : tripPost.getImages()) {
+						imageService.release(image.getImageUrl(), image.getDigest());
 					}
-				} else {
-					System.out.println("File does not exist: " + imageFile.getPath());
+					this.tripImageRepository.deleteAll(tripPost.getImages());
+					tripPost.getImages().clear();
 				}
-			}
-			this.tripImageRepository.deleteAll(tripPost.getImages());
-			tripPost.getImages().clear();
-		}
-		// Handle images
-		if (images != null && !images.isEmpty()) {
-			for (MultipartFile file : images) {
-				if (!file.isEmpty()) {
-					try {
-						// ✅ Save file locally
-						String fileName = UUID.randomUUID() + "_" + file.getOriginalFilename();
-						Path filePath = Paths.get(uploadDir, fileName);
-						Files.createDirectories(filePath.getParent()); // ensure folder exists
-						Files.write(filePath, file.getBytes());
-
-						// ✅ Save file reference in DB
-						TripImage tripImage = new TripImage();
-						tripImage.setImageUrl(uploadDir + fileName); // web-accessible path
-						tripImage.setTripPost(tripPost);
-						tripPost.getImages().add(tripImage);
-					} catch (IOException e) {
-						throw new RuntimeException("Failed to save image file", e);
-					}
+				addImages(tripPost, staged);
+				if (imagesChanged) {
+					// images are the inverse side, so an image-only edit would not touch trip_posts or its ETag
+					tripPost.setModifiedDate(LocalDateTime.now());
 				}
-			}
+
+				tripPostRepository.save(tripPost);
+				eventPublisher.publishEvent(new TripPostEvent(TripPostEvent.Type.SAVED, tripPost));
+			});
+		} catch (RuntimeException e) {
+			imageService.discardStaged(staged);
+			throw e;
 		}
+	}
 
-		tripPostRepository.save(tripPost);
+	private void addImages(TripPost tripPost, List<StagedImage> staged) {
+		imageService.commitStaged(staged);
+		for (StagedImage image : staged) {
+			TripImage tripImage = new TripImage();
+			tripImage.setImageUrl(image.getKey());
+			tripImage.setDigest(image.getDigest());
+			tripImage.setTripPost(tripPost);
+			tripPost.getImages().add(tripImage);
+		}
 	}
 
-	@Transactional(readOnly = true)
+	// not transactional: a cache hit must not check out a pooled connection
 	public List<TripPostDTO> getAllTripPosts() {
-		List<TripPostDTO> data = tripPostRepository.findAllByDeletedFalse();
-		if (!data.isEmpty()) {
-			data.forEach(t -> {
-				if (t.getImage() != null) {
-					String encodeImage = CommonMethods.encodeImageToBase64(t.getImage());
-					t.setImage("data:image/jpeg;base64," + encodeImage);
-				}
-				if (t.getTotalRating() != null) {
-					t.setRating((double) Math.round((t.getTotalRating() / t.getTotalUser()) * 1.0));
-				} else {
-					t.setRating(0.0);
-				}
-			});
+		return tripFeedCache.getAll(() -> {
+			List<TripPostDTO> data = tripPostRepository.findAllByDeletedFalse();
+			if (!data.isEmpty()) {
+				data.forEach(this::prepareFeedItem);
+			}
+			return data;
+		});
+	}
+
+	public CursorPage<TripPostDTO> getTripPostsPage(String cursor, Integer size) {
+		int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		return tripFeedCache.getPage(cursor, pageSize, () -> loadTripPostsPage(cursor, pageSize));
+	}
+
+	private CursorPage<TripPostDTO> loadTripPostsPage(String cursor, int pageSize) {
+		// fetch one extra id to know whether another page exists
+		PageRequest limit = PageRequest.of(0, pageSize + 1);
+		List<Long> ids;
+		if (cursor == null || cursor.isBlank()) {
+			ids = tripPostRepository.findFeedIdsFirstPage(limit);
+		} else {
+			KeysetCursor after = KeysetCursor.decode(cursor);
+			ids = tripPostRepository.findFeedIdsAfter(after.getTimestamp(), after.getId(), limit);
 		}
-		return data;
+
+		boolean hasMore = ids.size() > pageSize;
+		if (hasMore) {
+			ids = ids.subList(0, pageSize);
+		}
+		if (ids.isEmpty()) {
+			return new CursorPage<>(List.of(), null);
+		}
+
+		List<TripPostDTO> data = tripPostRepository.findFeedByIds(ids);
+		data.sort(Comparator.comparing(TripPostDTO::getCreatedDate).thenComparing(TripPostDTO::getId).reversed());
+		data.forEach(this::prepareFeedItem);
+
+		String nextCursor = null;
+		if (hasMore) {
+			TripPostDTO last = data.get(data.size() - 1);
+			nextCursor = new KeysetCursor(last.getCreatedDate(), last.getId()).encode();
+		}
+		return new CursorPage<>(data, nextCursor);
+	}
+
+	public List<TripPostDTO> searchTripPosts(String query, Integer limit) {
+		int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		return getFeedItemsInOrder(tripSearchIndex.search(query, size));
+	}
+
+	public List<TripPostDTO> getTrendingTripPosts(Integer limit) {
+		int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		return getFeedItemsInOrder(trendingService.findTopPostIds(size));
+	}
+
+	// the user's age and gender are read per request, so profile edits apply on the next page
+	public CursorPage<TripPostDTO> getEligibleTripPosts(String cursor, Integer size) {
+		int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		Long before = cursor == null || cursor.isBlank() ? null : KeysetCursor.decodeId(cursor);
+		User user = this.contextService.getCurrentUser();
+		List<Long> ids = tripEligibilityIndex.findEligible(user.getAge(), user.getGender(), before, pageSize + 1);
+
+		boolean hasMore = ids.size() > pageSize;
+		if (hasMore) {
+			ids = ids.subList(0, pageSize);
+		}
+		String nextCursor = hasMore ? KeysetCursor.encodeId(ids.get(ids.size() - 1)) : null;
+		return new CursorPage<>(getFeedItemsInOrder(ids), nextCursor);
+	}
+
+	// answered from memory alone, like the other uid-returning index lookups
+	public List<String> findSimilarTrips(String uid, Integer limit) {
+		int size = limit == null ? 10 : limit;
+		List<String> similar = tripSimilarityIndex.findSimilar(uid, size);
+		if (similar == null) {
+			throw new RuntimeException("Trip post not found");
+		}
+		return similar;
+	}
+
+	public List<String> suggestDestinations(String prefix, Integer limit) {
+		int size = limit == null ? DestinationSuggestIndex.MAX_SUGGESTIONS
+				: Math.max(1, Math.min(limit, DestinationSuggestIndex.MAX_SUGGESTIONS));
+		return destinationSuggestIndex.suggest(prefix, size);
+	}
+
+	// the cursor carries the last trip's start day and post id, the index's own sort key
+	public CursorPage<String> findTripsOverlapping(LocalDate from, LocalDate to, String cursor, Integer size) {
+		if (from.isAfter(to)) {
+			throw new ValidationException("from must not be after to");
+		}
+		int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+
+		List<Overlap> overlaps = tripIntervalIndex.findOverlapping(from, to,
+				after == null ? null : after.getTimestamp().toLocalDate(), after == null ? null : after.getId(),
+				pageSize + 1);
+		boolean hasMore = overlaps.size() > pageSize;
+		if (hasMore) {
+			overlaps = overlaps.subList(0, pageSize);
+		}
+		String nextCursor = null;
+		if (hasMore) {
+			Overlap last = overlaps.get(overlaps.size() - 1);
+			nextCursor = new KeysetCursor(last.getTripStartingDate().atStartOfDay(), last.getPostId()).encode();
+		}
+		return new CursorPage<>(overlaps.stream().map(Overlap::getUid).toList(), nextCursor);
 	}
 
 	@Transactional(readOnly = true)
-	public TripPostDTO getTripPostByUid(String uid) {
-		TripPost tripPost = tripPostRepository.findByUidAndDeletedFalse(uid)
+	public TripFilterResult filterTripPosts(TripFilterRequest filter, String cursor, Integer size) {
+		int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		boolean head = cursor == null || cursor.isBlank();
+		KeysetCursor after = head ? null : KeysetCursor.decode(cursor);
+
+		List<Long> ids = tripPostRepository.findFilteredIds(filter, after, pageSize + 1);
+		boolean hasMore = ids.size() > pageSize;
+		if (hasMore) {
+			ids = ids.subList(0, pageSize);
+		}
+		List<TripPostDTO> data = getFeedItemsInOrder(ids);
+
+		String nextCursor = null;
+		if (hasMore && !data.isEmpty()) {
+			TripPostDTO last = data.get(data.size() - 1);
+			nextCursor = new KeysetCursor(last.getCreatedDate(), last.getId()).encode();
+		}
+
+		Long total = null;
+		Map<String, Map<String, Long>> facets = null;
+		if (head) {
+			total = tripPostRepository.countFiltered(filter);
+			facets = new LinkedHashMap<>();
+			for (String facet : FILTER_FACETS) {
+				facets.put(facet, tripPostRepository.countFacet(filter, facet));
+			}
+		}
+		return new TripFilterResult(data, nextCursor, total, facets);
+	}
+
+	public TripPostVersion getTripPostVersion(String uid) {
+		return tripPostRepository.findVersionByUid(uid)
 				.orElseThrow(() -> new RuntimeException("Trip post not found"));
-		return TripPostDTO.convertToDTO(tripPost);
+	}
+
+	public String getFeedETag() {
+		return tripFeedCache.getETag();
+	}
+
+	public TripPostDTO getTripPostByUid(String uid) {
+		List<TripDetailRow> rows = tripPostRepository.findDetailRowsByUid(uid);
+		if (rows.isEmpty()) {
+			throw new RuntimeException("Trip post not found");
+		}
+		return TripPostDTO.convertToDTO(rows, imageUrl -> imageService.toClientImage(imageUrl, ImageVariant.DETAIL));
 	}
 
 	@Transactional(readOnly = true)
@@ -159,12 +302,7 @@ public class TripService {
 		List<TripPostDTO> data = tripPostRepository
 				.findAllByDeletedFalseAndUserId(user.getId(), isAdmin);
 		if (!data.isEmpty()) {
-			data.forEach(t -> {
-				if (t.getImage() != null) {
-					String encodeImage = CommonMethods.encodeImageToBase64(t.getImage());
-					t.setImage("data:image/jpeg;base64," + encodeImage);
-				}
-			});
+			data.forEach(t -> t.setImage(imageService.toClientImage(t.getImage(), ImageVariant.THUMBNAIL)));
 		}
 		return data;
 	}
@@ -176,28 +314,39 @@ public class TripService {
 		if (!post.getTripFeedback().isEmpty())
 			this.tripFeedbackRepository.deleteAll(post.getTripFeedback());
 		if (!post.getImages().isEmpty()) {
-			List<String> imageUrls = post.getImages().stream().map(TripImage::getImageUrl).toList();
-			if (!imageUrls.isEmpty()) {
-				for (String imageUrl : imageUrls) {
-					// Extract local file path from the URL if needed
-					// Example: if the URL is like "/uploads/images/image1.jpg", map it to actual
-					// path
-					File imageFile = new File(imageUrl); // adjust path here
-
-					if (imageFile.exists()) {
-						boolean deleted = imageFile.delete();
-						if (deleted) {
-							System.out.println("Deleted: " + imageFile.getPath());
-						} else {
-							System.err.println("Failed to delete: " + imageFile.getPath());
-						}
-					} else {
-						System.out.println("File does not exist: " + imageFile.getPath());
-					}
-				}
+			for (TripImage image : post.getImages()) {
+				imageService.release(image.getImageUrl(), image.getDigest());
 			}
 			this.tripImageRepository.deleteAll(post.getImages());
 		}
 		tripPostRepository.deleteByUid(uid);
+		eventPublisher.publishEvent(new TripPostEvent(TripPostEvent.Type.DELETED, post));
+	}
+
+	private void prepareFeedItem(TripPostDTO t) {
+		t.setImage(imageService.toClientImage(t.getImage(), ImageVariant.THUMBNAIL));
+		if (t.getTotalUser() != null && t.getTotalUser() > 0) {
+			t.setRating((double) Math.round((t.getTotalRating() / t.getTotalUser()) * 1.0));
+		} else {
+			t.setRating(0.0);
+		}
+	}
+
+	// hydrates posts picked by an in-memory index, keeping the index's order
+	private List<TripPostDTO> getFeedItemsInOrder(List<Long> ids) {
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		Map<Long, TripPostDTO> byId = new HashMap<>();
+		tripPostRepository.findFeedByIds(ids).forEach(t -> byId.put(t.getId(), t));
+		List<TripPostDTO> data = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			TripPostDTO t = byId.get(id);
+			if (t != null) {
+				prepareFeedItem(t);
+				data.add(t);
+			}
+		}
+		return data;
 	}
 }
\ No newline at end of file
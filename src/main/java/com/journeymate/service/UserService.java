@@ -1,21 +1,16 @@
 package com.journeymate.service;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.journeymate.dto.PasswordResetRequest;
@@ -26,7 +21,7 @@ import com.journeymate.model.user.Role;
 import com.journeymate.model.user.User;
 import com.journeymate.repository.user.RoleRepository;
 import com.journeymate.repository.user.UserRepository;
-import com.journeymate.utils.CommonMethods;
+import com.journeymate.service.StoredImageService.StagedImage;
 
 import lombok.RequiredArgsConstructor;
 
@@ -39,9 +34,8 @@ public class UserService {
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final ContextService contextService;
-    
-	@Value("${upload.dir}")
-	private String uploadDir;
+    private final ImageService imageService;
+    private final TransactionTemplate transactionTemplate;
 
     public Map<String, String> createUser(UserDTO userDTO) {
         // Validate unique constraints first
@@ -78,8 +72,7 @@ public class UserService {
         if(user == null) throw new CustomException("User not found or disabled!!!");
         UserDTO userDto = UserDTO.convertToDTO(user);
         if (user.getProfileImage() != null) {
-			String encodeImage = CommonMethods.encodeImageToBase64(uploadDir+"profiles/"+user.getProfileImage());
-			userDto.setProfileImage("data:image/jpeg;base64," + encodeImage);
+			userDto.setProfileImage(imageService.toClientImage(getProfileImageKey(user)));
 		}
         return userDto;
     }
@@ -132,46 +125,41 @@ public class UserService {
         userRepository.save(user);
     }
 
+	// the upload is staged before the transaction so the connection is only held for the row update
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
 	public Map<String, String> updateProfileImage(MultipartFile image) {
-		User user = this.contextService.getCurrentUser();
-		String fileName = null;
-		
-		// add profile image in directory
-		if (image != null && !image.isEmpty()) {
-			try {
-				// ✅ Save file locally
-				String imageName = image.getOriginalFilename();
-				fileName = UUID.randomUUID() + imageName.substring(imageName.lastIndexOf("."), imageName.length());
-				Path filePath = Paths.get(uploadDir+"profiles/", fileName);
-				Files.createDirectories(filePath.getParent()); // ensure folder exists
-				Files.write(filePath, image.getBytes());
-			} catch (IOException e) {
-				throw new RuntimeException("Failed to save image file", e);
-			}
-		}
-		
-		// delete existing profile image
-		if(user.getProfileImage() != null) {
-			File imageFile = new File(uploadDir+"profiles/", user.getProfileImage()); // adjust path here
-
-			if (imageFile.exists()) {
-				boolean deleted = imageFile.delete();
-				if (deleted) {
-					System.out.println("Deleted: " + imageFile.getPath());
-				} else {
-					System.err.println("Failed to delete: " + imageFile.getPath());
+		List<StagedImage> staged = imageService.stageUploads(image == null ? List.of() : List.of(image));
+		String imageKey;
+		try {
+			imageKey = transactionTemplate.execute(status -> {
+				User user = this.contextService.getCurrentUser();
+
+				// release existing profile image, its file goes after commit
+				if (user.getProfileImage() != null) {
+					imageService.release(getProfileImageKey(user), user.getProfileImageDigest());
 				}
-			} else {
-				System.out.println("File does not exist: " + imageFile.getPath());
-			}
+				imageService.commitStaged(staged);
+				user.setProfileImage(staged.isEmpty() ? null : staged.get(0).getKey());
+				user.setProfileImageDigest(staged.isEmpty() ? null : staged.get(0).getDigest());
+				userRepository.save(user);
+				return user.getProfileImage() == null ? null : getProfileImageKey(user);
+			});
+		} catch (RuntimeException e) {
+			imageService.discardStaged(staged);
+			throw e;
 		}
-		user.setProfileImage(fileName);
-		
+
 		Map<String, String> data = new HashMap<>();
-		if(user.getProfileImage() != null) {
-			data.put("image", "data:image/jpeg;base64," + CommonMethods.encodeImageToBase64(uploadDir+"profiles/"+user.getProfileImage()));
+		if (imageKey != null) {
+			data.put("image", imageService.toClientImage(imageKey));
 		}
-		
 		return data;
 	}
+
+	// profile_image holds a store key, except for rows from before keys that only kept a name under profiles/
+	private String getProfileImageKey(User user) {
+		String profileImage = user.getProfileImage();
+		return user.getProfileImageDigest() != null || profileImage.contains("/") ? profileImage
+				: "profiles/" + profileImage;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package com.journeymate.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps recently served image files open so hot images skip the open/close per request.
+ * At most {@code app.images.channel-cache-size} channels stay open, least recently used
+ * first out. A channel is only closed once the cache and every reader have let go of it.
+ */
+@Component
+public class FileChannelCache {
+
+    private final Logger logger = LoggerFactory.getLogger(FileChannelCache.class);
+
+    private final int maxOpen;
+    // access-ordered, so the first entry is the least recently used
+    private final LinkedHashMap<Path, Handle> handles = new LinkedHashMap<>(16, 0.75f, true);
+
+    public FileChannelCache(@Value("${app.images.channel-cache-size:64}") int maxOpen) {
+        this.maxOpen = maxOpen;
+    }
+
+    /**
+     * An open channel on the file, reused when the cached one was opened on the same size
+     * and mtime. Close the handle when done reading.
+     */
+    public Handle acquire(Path file, long size, long lastModified) throws IOException {
+        if (maxOpen <= 0) {
+            return new Handle(FileChannel.open(file, StandardOpenOption.READ), size, lastModified);
+        }
+        synchronized (this) {
+            Handle cached = handles.get(file);
+            if (cached != null) {
+                if (cached.size == size && cached.lastModified == lastModified && cached.retain()) {
+                    return cached;
+                }
+                handles.remove(file);
+                cached.release();
+            }
+        }
+
+        Handle opened = new Handle(FileChannel.open(file, StandardOpenOption.READ), size, lastModified);
+        synchronized (this) {
+            opened.retain();
+            Handle previous = handles.put(file, opened);
+            if (previous != null) {
+                previous.release();
+            }
+            if (handles.size() > maxOpen) {
+                Iterator<Handle> eldest = handles.values().iterator();
+                Handle evicted = eldest.next();
+                eldest.remove();
+                evicted.release();
+            }
+        }
+        return opened;
+    }
+
+    /** Drops the cached channel of a file that was deleted or moved. */
+    public synchronized void invalidate(Path file) {
+        Handle handle = handles.remove(file);
+        if (handle != null) {
+            handle.release();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void closeAll() {
+        handles.values().forEach(Handle::release);
+        handles.clear();
+    }
+
+    public final class Handle implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final long size;
+        private final long lastModified;
+        // starts with the reference of whoever created it
+        private int references = 1;
+
+        private Handle(FileChannel channel, long size, long lastModified) {
+            this.channel = channel;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public FileChannel channel() {
+            return channel;
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+
+        private synchronized boolean retain() {
+            if (references == 0) {
+                return false;
+            }
+            references++;
+            return true;
+        }
+
+        private void release() {
+            synchronized (this) {
+                if (references == 0 || --references > 0) {
+                    return;
+                }
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close image channel: {}", e.getMessage());
+            }
+        }
+    }
+}
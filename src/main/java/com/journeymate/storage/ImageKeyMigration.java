@@ -0,0 +1,115 @@
+package com.journeymate.storage;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.journeymate.model.trip.TripImage;
+import com.journeymate.model.user.User;
+import com.journeymate.repository.trip.TripImageRepository;
+import com.journeymate.repository.user.UserRepository;
+
+/**
+ * Rewrites image references from before the {@link ImageStore}: trip_images.image_url
+ * held upload.dir + file name and users.profile_image a bare name under profiles/.
+ * Each row's file is moved into the sharded layout before the row is rewritten, so a
+ * run that stops halfway can simply be started again.
+ */
+@Component
+public class ImageKeyMigration {
+
+    private final Logger logger = LoggerFactory.getLogger(ImageKeyMigration.class);
+
+    private final TripImageRepository tripImageRepository;
+    private final UserRepository userRepository;
+    private final ImageStore imageStore;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${upload.dir}")
+    private String uploadDir;
+
+    @Value("${app.images.migrate-keys-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @Value("${app.images.migrate-chunk-size:500}")
+    private int chunkSize;
+
+    public ImageKeyMigration(TripImageRepository tripImageRepository, UserRepository userRepository,
+                             ImageStore imageStore, TransactionTemplate transactionTemplate) {
+        this.tripImageRepository = tripImageRepository;
+        this.userRepository = userRepository;
+        this.imageStore = imageStore;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            migrate();
+        }
+    }
+
+    public void migrate() {
+        int tripImages = migrateTripImages();
+        int profileImages = migrateProfileImages();
+        if (tripImages > 0 || profileImages > 0) {
+            logger.info("Migrated {} trip images and {} profile images to store keys", tripImages, profileImages);
+        }
+    }
+
+    private int migrateTripImages() {
+        int migrated = 0;
+        long afterId = 0;
+        List<TripImage> chunk;
+        do {
+            chunk = tripImageRepository.findWithPrefixAfter(afterId, uploadDir, PageRequest.of(0, chunkSize));
+            for (TripImage image : chunk) {
+                afterId = image.getId();
+                String key = image.getImageUrl().substring(uploadDir.length());
+                if (moveFile(key)) {
+                    transactionTemplate.executeWithoutResult(status -> tripImageRepository.updateImageUrl(image.getId(), key));
+                    migrated++;
+                }
+            }
+        } while (chunk.size() == chunkSize);
+        return migrated;
+    }
+
+    private int migrateProfileImages() {
+        int migrated = 0;
+        long afterId = 0;
+        List<User> chunk;
+        do {
+            chunk = userRepository.findWithProfileImageAfter(afterId, PageRequest.of(0, chunkSize));
+            for (User user : chunk) {
+                afterId = user.getId();
+                String profileImage = user.getProfileImage();
+                boolean legacyName = user.getProfileImageDigest() == null && !profileImage.contains("/");
+                String key = legacyName ? "profiles/" + profileImage : profileImage;
+                if (moveFile(key) && legacyName) {
+                    transactionTemplate.executeWithoutResult(status -> userRepository.updateProfileImage(user.getId(), key));
+                    migrated++;
+                }
+            }
+        } while (chunk.size() == chunkSize);
+        return migrated;
+    }
+
+    private boolean moveFile(String key) {
+        try {
+            imageStore.migrate(key);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Could not migrate image {}: {}", key, e.getMessage());
+            return false;
+        }
+    }
+}
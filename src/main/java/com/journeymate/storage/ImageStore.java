@@ -0,0 +1,62 @@
+package com.journeymate.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Where uploaded image bytes live. Callers only deal in relative, '/'-separated keys,
+ * which is what trip_images.image_url, users.profile_image and stored_images.storage_key
+ * hold; how a key maps onto storage is up to the implementation. An original and its
+ * variants ({@code <stem>-<suffix>.<ext>}) are always kept together.
+ */
+public interface ImageStore {
+
+    /** Keys {@link #walk} reports for staging files that were never put. */
+    String STAGING_PREFIX = ".staging/";
+
+    boolean exists(String key);
+
+    /** Empty when nothing is stored under the key or the key is not a valid store key. */
+    Optional<Resource> get(String key);
+
+    InputStream open(String key) throws IOException;
+
+    /** The file holding the key's bytes when the store is backed by the local file system. */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    long lastModified(String key) throws IOException;
+
+    void touch(String key) throws IOException;
+
+    /** A file to stream an upload into before its key is known; it must be {@link #put} or deleted. */
+    Path createStagingFile() throws IOException;
+
+    /**
+     * Moves a staging file under the key. Returns false and leaves the staging file
+     * alone when the key is already taken.
+     */
+    boolean put(Path stagingFile, String key) throws IOException;
+
+    boolean delete(String key) throws IOException;
+
+    /** Keys in the same directory sharing this key's stem, i.e. an original and its variants. */
+    List<String> listRelated(String key) throws IOException;
+
+    void walk(Visitor visitor) throws IOException;
+
+    /** Moves bytes written under an older layout to where the key lives now. */
+    default void migrate(String key) throws IOException {
+    }
+
+    @FunctionalInterface
+    interface Visitor {
+        void visit(String key, long size, long lastModified);
+    }
+}
@@ -0,0 +1,276 @@
+package com.journeymate.storage;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import com.journeymate.utils.ImageVariant;
+
+/**
+ * Keeps images under upload.dir, sharded two levels deep by a hash of the file stem:
+ * key {@code cas/abc.jpg} lives at {@code <root>/cas/3f/a1/abc.jpg}. Hashing the stem
+ * rather than the name keeps variants in their original's directory. Files written
+ * before sharding are still found at {@code <root>/<key>} until {@link #migrate} moves them.
+ */
+@Component
+public class LocalFileSystemImageStore implements ImageStore {
+
+    private static final String STAGING_DIR = ".staging";
+
+    private final Logger logger = LoggerFactory.getLogger(LocalFileSystemImageStore.class);
+
+    private final Path root;
+    private final FileChannelCache channelCache;
+
+    public LocalFileSystemImageStore(@Value("${upload.dir}") String uploadDir, FileChannelCache channelCache) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.channelCache = channelCache;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return locate(key) != null;
+    }
+
+    @Override
+    public Optional<Resource> get(String key) {
+        Path file = locate(key);
+        return file == null ? Optional.empty() : Optional.of(new FileSystemResource(file));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(require(key));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.ofNullable(locate(key));
+    }
+
+    @Override
+    public long lastModified(String key) throws IOException {
+        return Files.getLastModifiedTime(require(key)).toMillis();
+    }
+
+    @Override
+    public void touch(String key) throws IOException {
+        Files.setLastModifiedTime(require(key), FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    @Override
+    public Path createStagingFile() throws IOException {
+        // inside the root so put() is a rename on the same file system
+        Path stagingDir = root.resolve(STAGING_DIR);
+        Files.createDirectories(stagingDir);
+        return Files.createTempFile(stagingDir, "upload", ".tmp");
+    }
+
+    @Override
+    public boolean put(Path stagingFile, String key) throws IOException {
+        Path target = shardedPath(checkKey(key));
+        if (exists(key)) {
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(stagingFile, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        String valid = checkKey(key);
+        channelCache.invalidate(shardedPath(valid));
+        channelCache.invalidate(legacyPath(valid));
+        boolean deleted = Files.deleteIfExists(shardedPath(valid));
+        return Files.deleteIfExists(legacyPath(valid)) || deleted;
+    }
+
+    @Override
+    public List<String> listRelated(String key) throws IOException {
+        String valid = checkKey(key);
+        String stem = stemOf(nameOf(valid));
+        String directory = directoryOf(valid);
+        List<String> related = new ArrayList<>();
+        for (Path dir : List.of(shardedPath(valid).getParent(), legacyPath(valid).getParent())) {
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, stem + "*")) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (Files.isRegularFile(file) && stemOf(name).equals(stem)) {
+                        related.add(directory + name);
+                    }
+                }
+            }
+        }
+        return related;
+    }
+
+    @Override
+    public void walk(Visitor visitor) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    visitor.visit(keyOf(root.relativize(file)), attrs.size(), attrs.lastModifiedTime().toMillis());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                logger.warn("Could not read {}: {}", file, e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Override
+    public void migrate(String key) throws IOException {
+        String valid = checkKey(key);
+        for (ImageVariant variant : ImageVariant.values()) {
+            String variantKey = variant.pathFor(valid);
+            Path legacy = legacyPath(variantKey);
+            Path sharded = shardedPath(variantKey);
+            if (!legacy.equals(sharded) && Files.isRegularFile(legacy) && !Files.exists(sharded)) {
+                Files.createDirectories(sharded.getParent());
+                Files.move(legacy, sharded, StandardCopyOption.ATOMIC_MOVE);
+                channelCache.invalidate(legacy);
+            }
+        }
+    }
+
+    private Path locate(String key) {
+        String valid = validKey(key);
+        if (valid == null) {
+            return null;
+        }
+        Path sharded = shardedPath(valid);
+        if (Files.isRegularFile(sharded)) {
+            return sharded;
+        }
+        Path legacy = legacyPath(valid);
+        return Files.isRegularFile(legacy) ? legacy : null;
+    }
+
+    private Path require(String key) throws IOException {
+        Path file = locate(key);
+        if (file == null) {
+            throw new FileNotFoundException(key);
+        }
+        return file;
+    }
+
+    private Path shardedPath(String key) {
+        String name = nameOf(key);
+        String hash = hash(stemOf(name));
+        return root.resolve(directoryOf(key) + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + name);
+    }
+
+    private Path legacyPath(String key) {
+        return root.resolve(key);
+    }
+
+    private String keyOf(Path relative) {
+        int count = relative.getNameCount();
+        String first = relative.getName(0).toString();
+        String name = relative.getFileName().toString();
+        if (STAGING_DIR.equals(first)) {
+            return STAGING_PREFIX + name;
+        }
+        StringBuilder key = new StringBuilder();
+        int dirCount = count - 1;
+        if (count >= 3) {
+            String hash = hash(stemOf(name));
+            if (relative.getName(count - 3).toString().equals(hash.substring(0, 2))
+                    && relative.getName(count - 2).toString().equals(hash.substring(2, 4))) {
+                dirCount = count - 3;
+            }
+        }
+        for (int i = 0; i < dirCount; i++) {
+            key.append(relative.getName(i)).append('/');
+        }
+        return key.append(name).toString();
+    }
+
+    private static String checkKey(String key) {
+        String valid = validKey(key);
+        if (valid == null) {
+            throw new IllegalArgumentException("Invalid image key " + key);
+        }
+        return valid;
+    }
+
+    // relative, '/'-separated, no empty, '.' or '..' segments
+    private static String validKey(String key) {
+        if (key == null || key.isEmpty() || key.indexOf('\\') >= 0 || key.indexOf(':') >= 0) {
+            return null;
+        }
+        for (String segment : key.split("/", -1)) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+                return null;
+            }
+        }
+        return key;
+    }
+
+    private static String directoryOf(String key) {
+        int slash = key.lastIndexOf('/');
+        return slash < 0 ? "" : key.substring(0, slash + 1);
+    }
+
+    private static String nameOf(String key) {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+
+    private static String stemOf(String name) {
+        String stem = ImageVariant.variantStem(name);
+        if (stem != null) {
+            return stem;
+        }
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
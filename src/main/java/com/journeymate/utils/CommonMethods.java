@@ -1,15 +1,16 @@
 package com.journeymate.utils;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.InputStream;
 import java.util.Base64;
 
+import com.journeymate.storage.ImageStore;
+
 public class CommonMethods {
 
-    public static String encodeImageToBase64(String imagePath) {
-        try {
-            byte[] imageBytes = Files.readAllBytes(Paths.get(imagePath));
+    public static String encodeImageToBase64(ImageStore imageStore, String key) {
+        try (InputStream in = imageStore.open(key)) {
+            byte[] imageBytes = in.readAllBytes();
             return Base64.getEncoder().encodeToString(imageBytes);
         } catch (IOException e) {
             e.printStackTrace();
@@ -0,0 +1,57 @@
+package com.journeymate.utils;
+
+public enum ImageVariant {
+
+    THUMBNAIL("thumb", 320),
+    DETAIL("detail", 1080),
+    ORIGINAL(null, 0);
+
+    private final String suffix;
+    private final int maxWidth;
+
+    ImageVariant(String suffix, int maxWidth) {
+        this.suffix = suffix;
+        this.maxWidth = maxWidth;
+    }
+
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+
+    /**
+     * Variants live next to the original as {@code <name>-<suffix>.<ext>}. PNG/GIF
+     * sources keep a PNG variant so transparency survives, everything else becomes JPEG.
+     */
+    public String pathFor(String originalPath) {
+        if (this == ORIGINAL) {
+            return originalPath;
+        }
+        int dot = originalPath.lastIndexOf('.');
+        int slash = Math.max(originalPath.lastIndexOf('/'), originalPath.lastIndexOf('\\'));
+        String stem = dot > slash ? originalPath.substring(0, dot) : originalPath;
+        return stem + "-" + suffix + "." + formatFor(originalPath);
+    }
+
+    /**
+     * The original's file name without extension when {@code fileName} looks like a
+     * variant, otherwise null.
+     */
+    public static String variantStem(String fileName) {
+        for (ImageVariant variant : values()) {
+            if (variant == ORIGINAL) {
+                continue;
+            }
+            String marker = "-" + variant.suffix + ".";
+            int at = fileName.lastIndexOf(marker);
+            if (at > 0 && fileName.indexOf('.', at + marker.length()) < 0) {
+                return fileName.substring(0, at);
+            }
+        }
+        return null;
+    }
+
+    public static String formatFor(String originalPath) {
+        String lower = originalPath.toLowerCase();
+        return lower.endsWith(".png") || lower.endsWith(".gif") ? "png" : "jpg";
+    }
+}
@@ -0,0 +1,111 @@
+package com.journeymate.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.journeymate.dto.CursorPage;
+import com.journeymate.dto.TripPostDTO;
+import com.journeymate.utils.KeysetCursor;
+
+class TripFeedCacheTest {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 10, 12, 0);
+
+	private final TripFeedCache cache = new TripFeedCache(2);
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@Test
+	void writesOnlyDropPagesWhoseWindowCoversThem() {
+		CursorPage<TripPostDTO> head = page(NOW, NOW.minusDays(2));
+		cache.getPage(null, 2, () -> load(head));
+
+		// older than the oldest post on the head page
+		cache.invalidate(NOW.minusDays(5));
+		assertSame(head, cache.getPage(null, 2, () -> load(page(NOW))));
+		assertEquals(1, loads.get());
+
+		cache.invalidate(NOW.minusDays(1));
+		cache.getPage(null, 2, () -> load(head));
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void laterPagesAreBoundedByTheirCursor() {
+		String cursor = new KeysetCursor(NOW.minusDays(2), 7L).encode();
+		cache.getPage(cursor, 2, () -> load(page(NOW.minusDays(3), NOW.minusDays(4))));
+
+		// a new post lands above the page's cursor
+		cache.invalidate(NOW);
+		cache.getPage(cursor, 2, () -> load(page()));
+		assertEquals(1, loads.get());
+
+		cache.invalidate(NOW.minusDays(3));
+		cache.getPage(cursor, 2, () -> load(page()));
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void loadThatRacesAWriteIsNotCached() {
+		long before = cache.getGeneration();
+		cache.getAll(() -> {
+			// a post is saved while the feed is being assembled
+			cache.invalidate(NOW);
+			return load(List.of());
+		});
+		assertNotEquals(before, cache.getGeneration());
+
+		cache.getAll(() -> load(List.of()));
+		cache.getAll(() -> load(List.of()));
+		assertEquals(2, loads.get());
+		assertEquals(1L, cache.getStats().getHits());
+		assertEquals(2L, cache.getStats().getMisses());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedBeyondMaxEntries() {
+		cache.getPage(null, 1, () -> load(page()));
+		cache.getPage(null, 2, () -> load(page()));
+		cache.getPage(null, 1, () -> load(page()));
+		cache.getPage(null, 3, () -> load(page()));
+
+		assertEquals(1L, cache.getStats().getEvictions());
+		assertEquals(2, cache.getStats().getSize());
+		cache.getPage(null, 1, () -> load(page()));
+		assertEquals(3, loads.get());
+		cache.getPage(null, 2, () -> load(page()));
+		assertEquals(4, loads.get());
+	}
+
+	@Test
+	void eTagChangesWhenTheFeedIsInvalidated() {
+		String eTag = cache.getETag();
+		assertEquals(eTag, cache.getETag());
+
+		cache.invalidateAll();
+		assertNotEquals(eTag, cache.getETag());
+	}
+
+	private <T> T load(T value) {
+		loads.incrementAndGet();
+		return value;
+	}
+
+	// a page with a next cursor, holding posts created at the given times, newest first
+	private static CursorPage<TripPostDTO> page(LocalDateTime... createdDates) {
+		List<TripPostDTO> items = new ArrayList<>();
+		for (LocalDateTime createdDate : createdDates) {
+			TripPostDTO dto = new TripPostDTO();
+			dto.setCreatedDate(createdDate);
+			items.add(dto);
+		}
+		return new CursorPage<>(items, items.isEmpty() ? null : "next");
+	}
+}
@@ -0,0 +1,112 @@
+package com.journeymate.repository.trip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.journeymate.dto.TripDetailRow;
+import com.journeymate.dto.TripFilterRequest;
+import com.journeymate.model.trip.TripFeedback;
+import com.journeymate.model.trip.TripImage;
+import com.journeymate.model.trip.TripPost;
+import com.journeymate.model.user.User;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:trip-posts;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class TripPostRepositoryTest {
+
+	@Autowired
+	private TripPostRepository tripPostRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Test
+	void detailIsFetchedInOneStatement() {
+		User creater = new User();
+		creater.setUsername("creater");
+		creater.setEmail("creater@example.com");
+		creater.setPassword("secret");
+		creater.setFullName("Trip Creater");
+		creater.setEnabled(true);
+		entityManager.persist(creater);
+
+		TripPost tripPost = new TripPost();
+		tripPost.setCreater(creater);
+		tripPost.setTitle("Spiti in winter");
+		tripPost.setDescription("Ten days across the valley");
+		tripPost.setDestination("Spiti");
+		tripPost.setPostExpireDate(LocalDate.now().plusDays(30));
+		for (String key : List.of("cas/a.jpg", "cas/b.jpg", "cas/c.jpg")) {
+			TripImage image = new TripImage();
+			image.setImageUrl(key);
+			image.setTripPost(tripPost);
+			tripPost.getImages().add(image);
+		}
+		entityManager.persist(tripPost);
+		for (int rating = 1; rating <= 5; rating++) {
+			TripFeedback feedback = new TripFeedback();
+			feedback.setTripPost(tripPost);
+			feedback.setCreatedBy(creater);
+			feedback.setRating(rating);
+			entityManager.persist(feedback);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		List<TripDetailRow> rows = tripPostRepository.findDetailRowsByUid(tripPost.getUid());
+
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+		assertEquals(List.of("cas/a.jpg", "cas/b.jpg", "cas/c.jpg"), rows.stream().map(TripDetailRow::getImageUrl).toList());
+		assertEquals("Trip Creater", rows.get(0).getCreaterName());
+	}
+
+	@Test
+	void priceFacetLeavesOutPostsWithoutPrice() {
+		User creater = new User();
+		creater.setUsername("pricer");
+		creater.setEmail("pricer@example.com");
+		creater.setPassword("secret");
+		creater.setFullName("Trip Pricer");
+		creater.setEnabled(true);
+		entityManager.persist(creater);
+		for (String price : new String[] { "3000", "60000", "75000", null }) {
+			TripPost tripPost = new TripPost();
+			tripPost.setCreater(creater);
+			tripPost.setTitle("Trip at " + price);
+			tripPost.setDescription("Priced " + price);
+			tripPost.setPrice(price == null ? null : new BigDecimal(price));
+			tripPost.setPostExpireDate(LocalDate.now().plusDays(30));
+			entityManager.persist(tripPost);
+		}
+		entityManager.flush();
+
+		Map<String, Long> counts = tripPostRepository.countFacet(new TripFilterRequest(),
+				TripPostFilterRepository.FACET_PRICE);
+
+		assertEquals(Map.of("0-5000", 1L, "50000+", 2L), counts);
+	}
+}
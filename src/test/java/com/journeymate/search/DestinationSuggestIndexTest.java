@@ -0,0 +1,101 @@
+package com.journeymate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DestinationSuggestIndexTest {
+
+	private final DestinationSuggestIndex index = new DestinationSuggestIndex();
+
+	@Test
+	void ranksByPostCountThenName() {
+		index.upsert(row(1, "Goa"));
+		index.upsert(row(2, "Gokarna"));
+		index.upsert(row(3, "Gokarna"));
+		index.upsert(row(4, "Gangtok"));
+		index.upsert(row(5, "Manali"));
+
+		assertEquals(List.of("Gokarna", "Gangtok", "Goa"), index.suggest("g", 10));
+		assertEquals(List.of("Gokarna", "Goa"), index.suggest("GO", 10));
+		assertEquals(List.of("Gokarna"), index.suggest("go", 1));
+		assertEquals(List.of(), index.suggest("x", 10));
+		assertEquals(List.of(), index.suggest("  ", 10));
+	}
+
+	@Test
+	void foldsCaseAccentsAndPunctuation() {
+		index.upsert(row(1, "Mont-Saint-Michel"));
+		index.upsert(row(2, "Z\u00fcrich"));
+
+		assertEquals(List.of("Mont-Saint-Michel"), index.suggest("mont saint", 10));
+		assertEquals(List.of("Z\u00fcrich"), index.suggest("zur", 10));
+		// a trailing space asks for the next word
+		assertEquals(List.of(), index.suggest("zurich ", 10));
+		assertEquals(List.of("Mont-Saint-Michel"), index.suggest("mont ", 10));
+	}
+
+	@Test
+	void movesAndRemovalsUpdateCountsAndPruneEmptyBranches() {
+		index.upsert(row(1, "Leh"));
+		index.upsert(row(2, "Leh"));
+		index.upsert(row(3, "Lonavala"));
+		index.upsert(row(2, "Lonavala"));
+
+		assertEquals(List.of("Lonavala", "Leh"), index.suggest("l", 10));
+
+		index.remove(1L);
+		assertEquals(List.of("Lonavala"), index.suggest("l", 10));
+		assertEquals(List.of(), index.suggest("le", 10));
+	}
+
+	@Test
+	void cachedTopTenMatchesBruteForce() {
+		Random random = new Random(7);
+		String[] names = new String[60];
+		for (int i = 0; i < names.length; i++) {
+			// short shared prefixes so many destinations compete for the same nodes
+			names[i] = "" + (char) ('a' + random.nextInt(3)) + (char) ('a' + random.nextInt(3)) + "dest" + i;
+		}
+		Map<Long, String> live = new HashMap<>();
+		for (int step = 0; step < 5000; step++) {
+			long id = 1 + random.nextInt(800);
+			if (random.nextInt(4) == 0) {
+				index.remove(id);
+				live.remove(id);
+			} else {
+				String name = names[random.nextInt(names.length)];
+				index.upsert(row(id, name));
+				live.put(id, name);
+			}
+			if (step % 50 == 0) {
+				for (String prefix : List.of("a", "b", "ab", "ca", "cc")) {
+					assertEquals(expected(live, prefix), index.suggest(prefix, DestinationSuggestIndex.MAX_SUGGESTIONS));
+				}
+			}
+		}
+	}
+
+	private static List<String> expected(Map<Long, String> live, String prefix) {
+		Map<String, Integer> counts = new HashMap<>();
+		for (String name : live.values()) {
+			if (name.startsWith(prefix)) {
+				counts.merge(name, 1, Integer::sum);
+			}
+		}
+		List<String> names = new ArrayList<>(counts.keySet());
+		names.sort(Comparator.<String>comparingInt(counts::get).reversed().thenComparing(Comparator.naturalOrder()));
+		return names.subList(0, Math.min(DestinationSuggestIndex.MAX_SUGGESTIONS, names.size()));
+	}
+
+	private static TripIndexRow row(long id, String destination) {
+		return new TripIndexRow(id, "uid-" + id, "", "", destination, null, null, null, null, 0, null, null, null);
+	}
+}
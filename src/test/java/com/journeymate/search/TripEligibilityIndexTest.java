@@ -0,0 +1,122 @@
+package com.journeymate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+class TripEligibilityIndexTest {
+
+	private final TripEligibilityIndex index = new TripEligibilityIndex();
+
+	@Test
+	void matchesAgeAndGenderRestrictions() {
+		index.upsert(row(1, null, null, null));
+		index.upsert(row(2, 18, 30, "any"));
+		index.upsert(row(3, 25, null, "Female"));
+		index.upsert(row(4, null, 20, "male"));
+
+		assertEquals(List.of(3L, 2L, 1L), index.findEligible(26, "female", null, 10));
+		assertEquals(List.of(4L, 2L, 1L), index.findEligible(19, "MALE", null, 10));
+		// no age on the profile only matches posts without an age restriction
+		assertEquals(List.of(1L), index.findEligible(null, "male", null, 10));
+		assertEquals(List.of(2L, 1L), index.findEligible(26, null, null, 10));
+	}
+
+	@Test
+	void updateReplacesRestriction() {
+		index.upsert(row(1, 18, 25, null));
+		index.upsert(row(1, 40, 60, null));
+
+		assertEquals(List.of(), index.findEligible(20, "male", null, 10));
+		assertEquals(List.of(1L), index.findEligible(45, "male", null, 10));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void cursorPagesNewestFirstAcrossHoles() {
+		List<Long> expected = new ArrayList<>();
+		for (long id = 1; id <= 200; id++) {
+			index.upsert(row(id, null, null, null));
+		}
+		for (long id = 200; id >= 1; id--) {
+			if (id % 3 == 0) {
+				index.remove(id);
+			} else {
+				expected.add(id);
+			}
+		}
+
+		assertEquals(expected, pageThrough(7));
+	}
+
+	@Test
+	void lateArrivalsAreMergedInIdOrder() {
+		index.upsert(row(10, null, null, null));
+		index.upsert(row(30, null, null, null));
+		// committed after 30 although its id was allocated earlier
+		index.upsert(row(20, null, null, null));
+		index.upsert(row(25, 50, null, null));
+
+		assertEquals(List.of(30L, 25L, 20L, 10L), index.findEligible(60, null, null, 10));
+		assertEquals(List.of(30L, 20L, 10L), index.findEligible(30, null, null, 10));
+		assertEquals(List.of(20L, 10L), index.findEligible(60, null, 25L, 10));
+		assertEquals(List.of(30L, 25L), index.findEligible(60, null, null, 2));
+
+		index.remove(20L);
+		assertEquals(List.of(30L, 25L, 10L), index.findEligible(60, null, null, 10));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	void overflowIsCompactedInIdOrder() {
+		index.upsert(row(5000, null, null, null));
+		for (long id = 1; id <= 1100; id++) {
+			index.upsert(row(id, null, null, null));
+		}
+
+		List<Long> expected = new ArrayList<>();
+		expected.add(5000L);
+		LongStream.rangeClosed(1, 1100).map(id -> 1101 - id).forEach(expected::add);
+		assertEquals(expected, pageThrough(50));
+	}
+
+	@Test
+	void cursorSurvivesCompaction() {
+		for (long id = 1; id <= 3000; id++) {
+			index.upsert(row(id, null, null, null));
+		}
+		List<Long> first = index.findEligible(30, "male", null, 10);
+		Long cursor = first.get(first.size() - 1);
+		assertEquals(2991L, cursor);
+
+		// the cursor's own post goes too, then enough holes to renumber everything
+		index.remove(cursor);
+		for (long id = 1; id <= 2000; id++) {
+			index.remove(id);
+		}
+
+		assertEquals(List.of(2990L, 2989L, 2988L), index.findEligible(30, "male", cursor, 3));
+		assertEquals(999, index.size());
+	}
+
+	private List<Long> pageThrough(int pageSize) {
+		List<Long> all = new ArrayList<>();
+		Long cursor = null;
+		while (true) {
+			List<Long> page = index.findEligible(30, "male", cursor, pageSize);
+			all.addAll(page);
+			if (page.size() < pageSize) {
+				return all;
+			}
+			cursor = page.get(page.size() - 1);
+		}
+	}
+
+	private static TripIndexRow row(long id, Integer minAge, Integer maxAge, String gender) {
+		return new TripIndexRow(id, "uid-" + id, "Trip " + id, "", "", null, null, null, null, 0, minAge, maxAge, gender);
+	}
+}
@@ -0,0 +1,129 @@
+package com.journeymate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TripIntervalIndexTest {
+
+	private static final LocalDate BASE = LocalDate.of(2025, 1, 1);
+
+	private final TripIntervalIndex index = new TripIntervalIndex();
+
+	@Test
+	void overlapIncludesBoundaryDaysAndIsOrderedByStart() {
+		index.upsert(row(1, 10, 12));
+		index.upsert(row(2, 0, 4));
+		index.upsert(row(3, 5, 5));
+		index.upsert(row(4, 6, 9));
+		index.upsert(row(5, 13, 20));
+
+		// 2 ends and 5 starts outside, 1 touches the last day, 3 the first
+		assertEquals(List.of("uid-3", "uid-4", "uid-1"), uids(day(5), day(10), 10));
+		assertEquals(List.of("uid-3", "uid-4"), uids(day(5), day(10), 2));
+	}
+
+	@Test
+	void upsertMovesAndRemoveDrops() {
+		index.upsert(row(1, 0, 3));
+		index.upsert(row(2, 1, 2));
+		index.upsert(row(1, 30, 31));
+
+		assertEquals(List.of("uid-2"), uids(day(0), day(5), 10));
+		assertEquals(List.of("uid-1"), uids(day(31), day(40), 10));
+
+		index.remove(2L);
+		index.upsert(new TripIndexRow(1L, "uid-1", "", "", "", null, null, null, null, 0, null, null, null));
+		assertEquals(List.of(), uids(day(0), day(40), 10));
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void matchesBruteForceThroughRotationsAndRemovals() {
+		Random random = new Random(42);
+		Map<Long, long[]> live = new HashMap<>();
+		for (long id = 1; id <= 3000; id++) {
+			long start = random.nextInt(365);
+			long end = start + random.nextInt(30);
+			index.upsert(row(id, start, end));
+			live.put(id, new long[] { start, end });
+		}
+		for (int i = 0; i < 1200; i++) {
+			long id = 1 + random.nextInt(3000);
+			if (random.nextBoolean()) {
+				index.remove(id);
+				live.remove(id);
+			} else {
+				long start = random.nextInt(365);
+				long end = start + random.nextInt(30);
+				index.upsert(row(id, start, end));
+				live.put(id, new long[] { start, end });
+			}
+		}
+
+		for (int query = 0; query < 200; query++) {
+			long from = random.nextInt(400);
+			long to = from + random.nextInt(20);
+			List<Map.Entry<Long, long[]>> expected = new ArrayList<>();
+			for (Map.Entry<Long, long[]> entry : live.entrySet()) {
+				if (entry.getValue()[0] <= to && entry.getValue()[1] >= from) {
+					expected.add(entry);
+				}
+			}
+			expected.sort(Comparator.<Map.Entry<Long, long[]>>comparingLong(e -> e.getValue()[0])
+					.thenComparingLong(Map.Entry::getKey));
+			List<String> expectedUids = expected.stream().map(e -> "uid-" + e.getKey()).toList();
+
+			assertEquals(expectedUids, uids(day(from), day(to), Integer.MAX_VALUE));
+			assertEquals(expectedUids.subList(0, Math.min(5, expectedUids.size())), uids(day(from), day(to), 5));
+		}
+		assertEquals(live.size(), index.size());
+	}
+
+	@Test
+	void pagesResumeAfterTheCursorWithoutGapsOrRepeats() {
+		Random random = new Random(5);
+		for (long id = 1; id <= 500; id++) {
+			// few distinct start days, so pages split runs of equal starts
+			long start = random.nextInt(10);
+			index.upsert(row(id, start, start + random.nextInt(5)));
+		}
+		List<String> all = uids(day(3), day(6), Integer.MAX_VALUE);
+
+		List<String> paged = new ArrayList<>();
+		LocalDate afterStart = null;
+		Long afterPostId = null;
+		List<TripIntervalIndex.Overlap> page;
+		do {
+			page = index.findOverlapping(day(3), day(6), afterStart, afterPostId, 7);
+			for (TripIntervalIndex.Overlap overlap : page) {
+				paged.add(overlap.getUid());
+				afterStart = overlap.getTripStartingDate();
+				afterPostId = overlap.getPostId();
+			}
+		} while (page.size() == 7);
+
+		assertEquals(all, paged);
+	}
+
+	private List<String> uids(LocalDate from, LocalDate to, int limit) {
+		return index.findOverlapping(from, to, null, null, limit).stream().map(TripIntervalIndex.Overlap::getUid)
+				.toList();
+	}
+
+	private static TripIndexRow row(long id, long startDay, long endDay) {
+		return new TripIndexRow(id, "uid-" + id, "", "", "", null, day(startDay), day(endDay), null, 0, null, null, null);
+	}
+
+	private static LocalDate day(long offset) {
+		return BASE.plusDays(offset);
+	}
+}
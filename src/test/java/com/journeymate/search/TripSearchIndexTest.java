@@ -0,0 +1,105 @@
+package com.journeymate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TripSearchIndexTest {
+
+	private final TripSearchIndex index = new TripSearchIndex();
+
+	@Test
+	void titleHitsOutrankDescriptionHits() {
+		index.upsert(row(1, "Weekend getaway", "Manali", "Snow trek above the valley"));
+		index.upsert(row(2, "Snow trek", "Manali", "Weekend getaway above the valley"));
+
+		assertEquals(List.of(2L, 1L), index.search("trek", 10));
+	}
+
+	@Test
+	void rareTermsWeighMoreThanCommonOnes() {
+		for (long id = 1; id <= 20; id++) {
+			index.upsert(row(id, "Goa beach party", "Goa", ""));
+		}
+		index.upsert(row(100, "Kerala beach party", "Kerala", ""));
+
+		// same shape of document, but the rarer term carries the higher idf
+		List<Long> results = index.search("goa kerala", 3);
+		assertEquals(3, results.size());
+		assertEquals(100L, results.get(0));
+	}
+
+	@Test
+	void shorterDocumentsWinForEqualTermFrequency() {
+		index.upsert(row(1, "Ladakh", "", "Ride through high passes, monasteries, lakes and long camp nights under stars"));
+		index.upsert(row(2, "Ladakh", "", "Ride"));
+
+		assertEquals(List.of(2L, 1L), index.search("ladakh", 10));
+	}
+
+	@Test
+	void stemmedQueriesMatchAndLimitIsApplied() {
+		index.upsert(row(1, "Beaches of Gokarna", "Gokarna", ""));
+		index.upsert(row(2, "Hiking in Coorg", "Coorg", ""));
+		index.upsert(row(3, "Beach hopping", "Goa", ""));
+
+		assertEquals(2, index.search("beach", 10).size());
+		assertEquals(List.of(2L), index.search("hiked", 10));
+		assertEquals(1, index.search("beach", 1).size());
+		assertEquals(List.of(), index.search("the and of", 10));
+	}
+
+	@Test
+	void updatesReplaceOldTermsAndRemovalsHidePosts() {
+		index.upsert(row(1, "Spiti", "Spiti", ""));
+		index.upsert(row(2, "Spiti circuit", "Spiti", ""));
+		index.upsert(row(1, "Rann of Kutch", "Kutch", ""));
+
+		assertEquals(List.of(2L), index.search("spiti", 10));
+		assertEquals(List.of(1L), index.search("kutch", 10));
+
+		index.remove(2L);
+		assertEquals(List.of(), index.search("spiti", 10));
+	}
+
+	@Test
+	void compactionKeepsLivePostsSearchable() {
+		for (long id = 1; id <= 40_000; id++) {
+			index.upsert(row(id, "Trip " + id, id % 2 == 0 ? "Goa" : "Kerala", ""));
+		}
+		// a quarter tombstoned triggers compaction
+		for (long id = 1; id <= 10_000; id++) {
+			index.remove(id);
+		}
+		index.upsert(row(50_000, "Trip late", "Goa", ""));
+
+		List<Long> kerala = index.search("kerala", 100);
+		assertEquals(100, kerala.size());
+		assertTrue(kerala.stream().allMatch(id -> id > 10_000 && id % 2 == 1));
+		assertEquals(List.of(20_000L), index.search("20000", 10));
+		assertEquals(List.of(), index.search("5000", 10));
+		assertEquals(List.of(50_000L), index.search("late", 10));
+	}
+
+	@Test
+	void repeatedEditsAreCompactedAway() {
+		index.upsert(row(2, "Rann of Kutch", "Kutch", ""));
+		for (int edit = 0; edit < 50_000; edit++) {
+			index.upsert(row(1, "Spiti edit " + edit, "Spiti", ""));
+		}
+
+		assertTrue(index.slotCount() <= 10_002);
+		assertEquals(List.of(1L), index.search("spiti", 10));
+		assertEquals(List.of(1L), index.search("49999", 10));
+		assertEquals(List.of(), index.search("48000", 10));
+		assertEquals(List.of(2L), index.search("kutch", 10));
+	}
+
+	private static TripIndexRow row(long id, String title, String destination, String description) {
+		return new TripIndexRow(id, "uid-" + id, title, description, destination, null, null, null, null, 0, null, null,
+				null);
+	}
+}
@@ -0,0 +1,107 @@
+package com.journeymate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TripSimilarityIndexTest {
+
+	private static final LocalDate START = LocalDate.of(2025, 6, 1);
+
+	private final TripSimilarityIndex index = new TripSimilarityIndex();
+
+	@Test
+	void closestFirstAndUnknownPostsGiveNull() {
+		index.upsert(row(1, "Goa", 10_000));
+		index.upsert(row(2, "Goa", 11_000));
+		index.upsert(row(3, "Goa", 40_000));
+		index.upsert(row(4, "Goa", 20_000));
+
+		assertEquals(List.of("uid-2", "uid-4", "uid-3"), index.findSimilar("uid-1", 10));
+		assertEquals(List.of("uid-2"), index.findSimilar("uid-1", 1));
+		assertNull(index.findSimilar("uid-99", 10));
+	}
+
+	@Test
+	void differentDestinationIsPenalised() {
+		index.upsert(row(1, "Goa", 10_000));
+		index.upsert(row(2, "Kerala", 10_000));
+		index.upsert(row(3, "goa", 14_000));
+
+		assertEquals(List.of("uid-3", "uid-2"), index.findSimilar("uid-1", 10));
+	}
+
+	@Test
+	void removingKeepsMovedSlotReachable() {
+		for (long id = 1; id <= 5; id++) {
+			index.upsert(row(id, "Goa", 1000 * id));
+		}
+		// the last slot moves into the hole left by post 2
+		index.remove(2L);
+
+		assertEquals(4, index.size());
+		assertNull(index.findSimilar("uid-2", 10));
+		assertEquals(List.of("uid-4", "uid-3", "uid-1"), index.findSimilar("uid-5", 10));
+		assertEquals(List.of("uid-3", "uid-4", "uid-5"), index.findSimilar("uid-1", 10));
+
+		index.upsert(row(5, "Goa", 2000));
+		assertEquals(List.of("uid-5", "uid-3", "uid-4"), index.findSimilar("uid-1", 10));
+	}
+
+	@Test
+	void heapKeepsTheNearestOfManyPosts() {
+		Random random = new Random(11);
+		Map<Long, TripIndexRow> live = new HashMap<>();
+		for (long id = 1; id <= 2000; id++) {
+			TripIndexRow row = row(id, "Goa", 1000 + random.nextInt(100_000));
+			index.upsert(row);
+			live.put(id, row);
+		}
+		for (int i = 0; i < 600; i++) {
+			long id = 1 + random.nextInt(2000);
+			index.remove(id);
+			live.remove(id);
+		}
+
+		for (TripIndexRow query : new ArrayList<>(live.values()).subList(0, 50)) {
+			List<Float> expected = new ArrayList<>();
+			for (TripIndexRow other : live.values()) {
+				if (!other.getId().equals(query.getId())) {
+					expected.add(distance(query, other));
+				}
+			}
+			expected.sort(null);
+
+			List<String> similar = index.findSimilar(query.getUid(), 20);
+			assertEquals(20, similar.size());
+			for (int i = 0; i < similar.size(); i++) {
+				TripIndexRow match = live.get(Long.parseLong(similar.get(i).substring(4)));
+				assertEquals(expected.get(i), distance(query, match), 1e-4);
+			}
+		}
+	}
+
+	private static float distance(TripIndexRow a, TripIndexRow b) {
+		float[] x = TripSimilarityIndex.encode(a);
+		float[] y = TripSimilarityIndex.encode(b);
+		float sum = 0;
+		for (int i = 0; i < x.length; i++) {
+			sum += (x[i] - y[i]) * (x[i] - y[i]);
+		}
+		return sum;
+	}
+
+	private static TripIndexRow row(long id, String destination, long price) {
+		return new TripIndexRow(id, "uid-" + id, "", "", destination, null, START, START.plusDays(5),
+				BigDecimal.valueOf(price), 5, 18, 40, "any");
+	}
+}
@@ -0,0 +1,110 @@
+package com.journeymate.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.journeymate.dto.ImageGcStats;
+import com.journeymate.repository.image.StoredImageRepository;
+import com.journeymate.repository.trip.TripArchiveRepository;
+import com.journeymate.repository.trip.TripImageRepository;
+import com.journeymate.repository.user.UserRepository;
+import com.journeymate.storage.InMemoryImageStore;
+
+class OrphanImageSweeperTest {
+
+	private static final String UPLOAD_DIR = "/var/journeymate/uploads/";
+	private static final byte[] BYTES = new byte[4];
+	private static final long LONG_AGO = System.currentTimeMillis() - Duration.ofDays(3).toMillis();
+
+	private final TripImageRepository tripImageRepository = mock(TripImageRepository.class);
+	private final TripArchiveRepository tripArchiveRepository = mock(TripArchiveRepository.class);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final StoredImageRepository storedImageRepository = mock(StoredImageRepository.class);
+	private final InMemoryImageStore imageStore = new InMemoryImageStore();
+	private final OrphanImageSweeper sweeper = new OrphanImageSweeper(tripImageRepository, tripArchiveRepository,
+			userRepository, storedImageRepository,
+			new StoredImageService(storedImageRepository, mock(ImageVariantService.class), imageStore), imageStore);
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(sweeper, "uploadDir", UPLOAD_DIR);
+		ReflectionTestUtils.setField(sweeper, "graceHours", 24L);
+		// small batches so the candidates span several database round trips
+		ReflectionTestUtils.setField(sweeper, "batchSize", 3);
+		ReflectionTestUtils.setField(sweeper, "batchPauseMillis", 0L);
+		ReflectionTestUtils.setField(sweeper, "maxDeletesPerSecond", 0);
+
+		when(tripImageRepository.findReferencedImageUrls(any()))
+				.thenAnswer(referencing("trips/kept.jpg", UPLOAD_DIR + "trips/legacy.jpg"));
+		when(tripArchiveRepository.findReferencedImageUrls(any())).thenAnswer(referencing("trips/archived.jpg"));
+		when(userRepository.findReferencedProfileImages(any())).thenAnswer(referencing("face.jpg"));
+		when(storedImageRepository.findReferencedStorageKeys(any())).thenAnswer(referencing("cas/d1.jpg"));
+
+		for (String key : List.of("trips/kept.jpg", "trips/kept-thumb.jpg", "trips/legacy.jpg", "trips/archived.jpg",
+				"profiles/face.jpg", "cas/d1.jpg", "trips/orphan.jpg", "trips/gone-thumb.jpg", "cas/d2.jpg",
+				".staging/upload1.tmp")) {
+			imageStore.put(key, BYTES, LONG_AGO);
+		}
+		imageStore.put("trips/fresh.jpg", BYTES);
+	}
+
+	@Test
+	void deletesOnlyUnreferencedFilesPastTheGracePeriod() {
+		ImageGcStats stats = sweeper.sweep(false);
+
+		assertEquals(11L, stats.getLastRunFilesScanned());
+		assertEquals(4L, stats.getLastRunOrphansFound());
+		assertEquals(4L, stats.getTotalFilesDeleted());
+		assertEquals(16L, stats.getTotalBytesReclaimed());
+		for (String key : List.of("trips/orphan.jpg", "trips/gone-thumb.jpg", "cas/d2.jpg", ".staging/upload1.tmp")) {
+			assertFalse(imageStore.exists(key), key);
+		}
+		for (String key : List.of("trips/kept.jpg", "trips/kept-thumb.jpg", "trips/legacy.jpg", "trips/archived.jpg",
+				"profiles/face.jpg", "cas/d1.jpg", "trips/fresh.jpg")) {
+			assertTrue(imageStore.exists(key), key);
+		}
+	}
+
+	@Test
+	void keepsStoreFilesThatGainedAReferenceDuringTheSweep() {
+		when(storedImageRepository.existsById("d2")).thenReturn(true);
+
+		ImageGcStats stats = sweeper.sweep(false);
+
+		assertEquals(4L, stats.getLastRunOrphansFound());
+		assertEquals(3L, stats.getTotalFilesDeleted());
+		assertTrue(imageStore.exists("cas/d2.jpg"));
+	}
+
+	@Test
+	void dryRunOnlyCounts() {
+		ImageGcStats stats = sweeper.sweep(true);
+
+		assertTrue(stats.isLastRunDryRun());
+		assertEquals(4L, stats.getLastRunOrphansFound());
+		assertEquals(0L, stats.getTotalFilesDeleted());
+		assertEquals(11, imageStore.size());
+	}
+
+	// a repository lookup that finds whichever of the given values it was asked about
+	private static Answer<List<String>> referencing(String... values) {
+		return invocation -> {
+			Collection<String> asked = invocation.getArgument(0);
+			return Stream.of(values).filter(asked::contains).toList();
+		};
+	}
+}
@@ -0,0 +1,175 @@
+package com.journeymate.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.journeymate.model.image.StoredImage;
+import com.journeymate.repository.image.StoredImageRepository;
+import com.journeymate.service.StoredImageService.StagedImage;
+import com.journeymate.storage.InMemoryImageStore;
+
+class StoredImageServiceTest {
+
+	private static final byte[] BYTES = "not really a jpeg".getBytes(StandardCharsets.UTF_8);
+	private static final long LONG_AGO = System.currentTimeMillis() - Duration.ofDays(1).toMillis();
+
+	private final StoredImageRepository storedImageRepository = mock(StoredImageRepository.class);
+	private final ImageVariantService imageVariantService = mock(ImageVariantService.class);
+	private final InMemoryImageStore imageStore = new InMemoryImageStore();
+	private final StoredImageService storedImageService = new StoredImageService(storedImageRepository,
+			imageVariantService, imageStore);
+
+	private StagedImage staged;
+
+	@BeforeEach
+	void stage() throws IOException {
+		staged = storedImageService.stage(new MockMultipartFile("file", "Photo.JPG", "image/jpeg", BYTES));
+	}
+
+	@AfterEach
+	void deleteStagingFile() throws IOException {
+		Files.deleteIfExists(staged.getStagedFile());
+	}
+
+	@Test
+	void stageHashesTheUploadAndKeysItByDigest() throws Exception {
+		String digest = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(BYTES));
+
+		assertEquals(digest, staged.getDigest());
+		assertEquals("cas/" + digest + ".jpg", staged.getKey());
+		assertEquals(BYTES.length, staged.getSize());
+		assertEquals("image/jpeg", staged.getContentType());
+		assertArrayEquals(BYTES, Files.readAllBytes(staged.getStagedFile()));
+		assertEquals(0, imageStore.size());
+	}
+
+	@Test
+	void acquireKeepsTheKeyTheContentWasFirstStoredUnder() {
+		String firstKey = "cas/" + staged.getDigest() + ".png";
+		when(storedImageRepository.findStorageKey(staged.getDigest())).thenReturn(Optional.of(firstKey));
+
+		storedImageService.acquire(staged);
+
+		verify(storedImageRepository).acquire(staged.getDigest(), "cas/" + staged.getDigest() + ".jpg", "image/jpeg",
+				BYTES.length);
+		assertEquals(firstKey, staged.getKey());
+	}
+
+	@Test
+	void promoteMovesNewContentUnderItsKey() throws IOException {
+		storedImageService.promote(staged);
+
+		assertTrue(staged.isPromoted());
+		assertTrue(staged.isCreated());
+		assertTrue(imageStore.exists(staged.getKey()));
+		assertFalse(Files.exists(staged.getStagedFile()));
+	}
+
+	@Test
+	void promoteOfKnownContentReusesTheStoredCopy() throws IOException {
+		imageStore.put(staged.getKey(), BYTES, LONG_AGO);
+
+		storedImageService.promote(staged);
+
+		assertTrue(staged.isPromoted());
+		assertFalse(staged.isCreated());
+		assertEquals(1, imageStore.size());
+		assertTrue(imageStore.lastModified(staged.getKey()) > LONG_AGO);
+		assertFalse(Files.exists(staged.getStagedFile()));
+	}
+
+	@Test
+	void discardRemovesOnlyWhatThisUploadCreated() throws IOException {
+		storedImageService.promote(staged);
+		storedImageService.discard(staged);
+		assertFalse(imageStore.exists(staged.getKey()));
+		assertFalse(staged.isCreated());
+
+		StagedImage reused = storedImageService.stage(new MockMultipartFile("file", "b.jpg", "image/jpeg", BYTES));
+		imageStore.put(reused.getKey(), BYTES, LONG_AGO);
+		storedImageService.promote(reused);
+		storedImageService.discard(reused);
+		assertTrue(imageStore.exists(reused.getKey()));
+	}
+
+	@Test
+	void discardKeepsContentAnotherUploadCommitted() throws IOException {
+		storedImageService.promote(staged);
+		when(storedImageRepository.existsById(staged.getDigest())).thenReturn(true);
+
+		storedImageService.discard(staged);
+
+		assertTrue(imageStore.exists(staged.getKey()));
+	}
+
+	@Test
+	void releaseReturnsTheKeyOnlyForTheLastReference() {
+		StoredImage storedImage = new StoredImage();
+		storedImage.setDigest("abc");
+		storedImage.setStorageKey("cas/abc.jpg");
+		when(storedImageRepository.findById("abc")).thenReturn(Optional.of(storedImage));
+
+		when(storedImageRepository.deleteIfUnreferenced("abc")).thenReturn(0);
+		assertNull(storedImageService.release("abc"));
+
+		when(storedImageRepository.deleteIfUnreferenced("abc")).thenReturn(1);
+		assertEquals("cas/abc.jpg", storedImageService.release("abc"));
+
+		assertNull(storedImageService.release("unknown"));
+		verify(storedImageRepository, never()).decrementRefCount("unknown");
+	}
+
+	@Test
+	void deleteUnreferencedSkipsRecentlyReusedAndReferencedFiles() {
+		imageStore.put("cas/fresh.jpg", BYTES);
+		storedImageService.deleteUnreferenced("fresh", "cas/fresh.jpg");
+		assertTrue(imageStore.exists("cas/fresh.jpg"));
+
+		imageStore.put("cas/kept.jpg", BYTES, LONG_AGO);
+		when(storedImageRepository.existsById("kept")).thenReturn(true);
+		storedImageService.deleteUnreferenced("kept", "cas/kept.jpg");
+		assertTrue(imageStore.exists("cas/kept.jpg"));
+		verify(imageVariantService, never()).deleteVariants(any());
+
+		imageStore.put("cas/old.jpg", BYTES, LONG_AGO);
+		storedImageService.deleteUnreferenced("old", "cas/old.jpg");
+		assertFalse(imageStore.exists("cas/old.jpg"));
+		verify(imageVariantService).deleteVariants("cas/old.jpg");
+	}
+
+	@Test
+	void deleteOrphanHonoursTheCutoffAndNewReferences() throws IOException {
+		long cutoff = LONG_AGO + 1000;
+		imageStore.put("cas/orphan.jpg", BYTES, LONG_AGO);
+		imageStore.put("cas/touched.jpg", BYTES);
+		imageStore.put("cas/adopted.jpg", BYTES, LONG_AGO);
+		when(storedImageRepository.existsById("adopted")).thenReturn(true);
+
+		assertTrue(storedImageService.deleteOrphan("cas/orphan.jpg", cutoff));
+		assertFalse(storedImageService.deleteOrphan("cas/touched.jpg", cutoff));
+		assertFalse(storedImageService.deleteOrphan("cas/adopted.jpg", cutoff));
+		assertFalse(storedImageService.deleteOrphan("cas/missing.jpg", cutoff));
+		assertEquals(2, imageStore.size());
+	}
+}
@@ -0,0 +1,168 @@
+package com.journeymate.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.journeymate.dto.TripImportReport;
+import com.journeymate.model.image.StoredImage;
+import com.journeymate.model.trip.TripImage;
+import com.journeymate.model.user.User;
+import com.journeymate.repository.image.StoredImageRepository;
+import com.journeymate.repository.trip.TripFeedbackRepository;
+import com.journeymate.repository.trip.TripImageRepository;
+import com.journeymate.repository.trip.TripPostRepository;
+import com.journeymate.repository.user.UserRepository;
+import com.journeymate.storage.InMemoryImageStore;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:trip-import;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// every step commits on its own, as it does in the application
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TripImportServiceTest {
+
+	private static final long LONG_AGO = System.currentTimeMillis() - Duration.ofDays(1).toMillis();
+
+	@Autowired
+	private TripPostRepository tripPostRepository;
+
+	@Autowired
+	private TripImageRepository tripImageRepository;
+
+	@Autowired
+	private TripFeedbackRepository tripFeedbackRepository;
+
+	@Autowired
+	private StoredImageRepository storedImageRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private final InMemoryImageStore imageStore = new InMemoryImageStore();
+	private final ImageVariantService imageVariantService = mock(ImageVariantService.class);
+	private final ContextService contextService = mock(ContextService.class);
+	private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+	private TransactionTemplate transactionTemplate;
+	private ImageService imageService;
+	private TripImportService tripImportService;
+	private TripService tripService;
+
+	@BeforeEach
+	void setUp() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		StoredImageService storedImageService = new StoredImageService(storedImageRepository, imageVariantService,
+				imageStore);
+		imageService = new ImageService(storedImageService, imageVariantService, imageStore);
+		ReflectionTestUtils.setField(imageService, "uploadDir", "/var/journeymate/uploads/");
+		tripImportService = new TripImportService(tripPostRepository, userRepository, contextService, imageService,
+				storedImageService, imageVariantService, eventPublisher, transactionTemplate, entityManager,
+				JsonMapper.builder().findAndAddModules().build());
+		ReflectionTestUtils.setField(tripImportService, "chunkSize", 500);
+		tripService = new TripService(tripPostRepository, tripFeedbackRepository, tripImageRepository, contextService,
+				imageService, null, null, null, null, null, null, null, eventPublisher, transactionTemplate);
+
+		String name = UUID.randomUUID().toString().substring(0, 8);
+		User creater = new User();
+		creater.setUsername(name);
+		creater.setEmail(name + "@example.com");
+		creater.setPassword("secret");
+		creater.setFullName("Partner " + name);
+		creater.setEnabled(true);
+		when(contextService.getCurrentUserId()).thenReturn(userRepository.save(creater).getId());
+	}
+
+	@Test
+	void importedPostSharesStoredImageAndDeletingItKeepsTheBytes() throws IOException {
+		String digest = storedImage();
+		String key = "cas/" + digest + ".jpg";
+
+		TripImportReport report = importRow(key);
+
+		assertEquals(1L, report.getImported());
+		TripImage imported = imagesWithKey(key).get(0);
+		assertEquals(digest, imported.getDigest());
+		assertEquals(2, storedImageRepository.findById(digest).orElseThrow().getRefCount());
+
+		String uid = transactionTemplate.execute(status -> tripImageRepository.findById(imported.getId()).orElseThrow()
+				.getTripPost().getUid());
+		transactionTemplate.executeWithoutResult(status -> tripService.deleteTripPost(uid));
+
+		assertTrue(imagesWithKey(key).isEmpty());
+		assertEquals(1, storedImageRepository.findById(digest).orElseThrow().getRefCount());
+		assertTrue(imageStore.exists(key));
+	}
+
+	@Test
+	void storeKeyWithoutStoredImageIsRejected() throws IOException {
+		String key = "cas/" + UUID.randomUUID().toString().replace("-", "") + ".jpg";
+		imageStore.put(key, new byte[4], LONG_AGO);
+
+		TripImportReport report = importRow(key);
+
+		assertEquals(0L, report.getImported());
+		assertEquals(1L, report.getFailed());
+		assertEquals("Image not found: " + key, report.getErrors().get(0).getMessage());
+		assertTrue(imagesWithKey(key).isEmpty());
+	}
+
+	// bytes uploaded earlier by someone else, holding one reference
+	private String storedImage() {
+		String digest = UUID.randomUUID().toString().replace("-", "");
+		StoredImage storedImage = new StoredImage();
+		storedImage.setDigest(digest);
+		storedImage.setStorageKey("cas/" + digest + ".jpg");
+		storedImage.setContentType("image/jpeg");
+		storedImage.setSize(4);
+		storedImage.setRefCount(1);
+		storedImageRepository.save(storedImage);
+		imageStore.put(storedImage.getStorageKey(), new byte[4], LONG_AGO);
+		return digest;
+	}
+
+	private TripImportReport importRow(String imageKey) throws IOException {
+		String line = "{\"title\":\"Spiti in winter\",\"description\":\"Ten days across the valley\","
+				+ "\"destination\":\"Spiti\",\"tripStartingDate\":\"2026-01-10\",\"tripEndingDate\":\"2026-01-20\","
+				+ "\"images\":[\"" + imageKey + "\"]}\n";
+		return tripImportService.importNdjson(new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private List<TripImage> imagesWithKey(String key) {
+		return tripImageRepository.findAll().stream().filter(image -> key.equals(image.getImageUrl())).toList();
+	}
+}
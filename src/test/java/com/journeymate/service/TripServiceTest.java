@@ -0,0 +1,167 @@
+package com.journeymate.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.journeymate.dto.TripPostVersion;
+import com.journeymate.dto.TripRequestDTO;
+import com.journeymate.model.trip.TripPost;
+import com.journeymate.model.user.User;
+import com.journeymate.repository.image.StoredImageRepository;
+import com.journeymate.repository.trip.TripFeedbackRepository;
+import com.journeymate.repository.trip.TripImageRepository;
+import com.journeymate.repository.trip.TripPostRepository;
+import com.journeymate.repository.user.UserRepository;
+import com.journeymate.storage.InMemoryImageStore;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:trip-service;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// every step commits on its own, as it does in the application
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TripServiceTest {
+
+	private static final LocalDateTime LAST_WEEK = LocalDateTime.now().minusWeeks(1).withNano(0);
+
+	@Autowired
+	private TripPostRepository tripPostRepository;
+
+	@Autowired
+	private TripImageRepository tripImageRepository;
+
+	@Autowired
+	private TripFeedbackRepository tripFeedbackRepository;
+
+	@Autowired
+	private StoredImageRepository storedImageRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private final InMemoryImageStore imageStore = new InMemoryImageStore();
+	private final ContextService contextService = mock(ContextService.class);
+
+	private TransactionTemplate transactionTemplate;
+	private TripService tripService;
+
+	@BeforeEach
+	void setUp() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		ImageVariantService imageVariantService = mock(ImageVariantService.class);
+		ImageService imageService = new ImageService(
+				new StoredImageService(storedImageRepository, imageVariantService, imageStore), imageVariantService,
+				imageStore);
+		ReflectionTestUtils.setField(imageService, "uploadDir", "/var/journeymate/uploads/");
+		tripService = new TripService(tripPostRepository, tripFeedbackRepository, tripImageRepository, contextService,
+				imageService, null, null, null, null, null, null, null, mock(ApplicationEventPublisher.class),
+				transactionTemplate);
+
+		String name = UUID.randomUUID().toString().substring(0, 8);
+		User creater = new User();
+		creater.setUsername(name);
+		creater.setEmail(name + "@example.com");
+		creater.setPassword("secret");
+		creater.setFullName("Trip Creater");
+		creater.setEnabled(true);
+		when(contextService.getCurrentUser()).thenReturn(userRepository.save(creater));
+	}
+
+	@Test
+	void replacingOnlyTheImagesMovesTheDetailVersion() {
+		String uid = createdLastWeek();
+
+		tripService.updateTripPost(uid, request(), List.of(upload("spiti.jpg", "first")));
+		TripPostVersion afterFirst = version(uid);
+		assertNotEquals(LAST_WEEK, afterFirst.getModifiedDate());
+		assertEquals(1, imageCount(uid));
+
+		backdate(uid);
+		tripService.updateTripPost(uid, request(), List.of(upload("kaza.jpg", "second")));
+		assertNotEquals(LAST_WEEK, version(uid).getModifiedDate());
+		assertEquals(1, imageCount(uid));
+	}
+
+	@Test
+	void unchangedUpdateKeepsTheDetailVersion() {
+		String uid = createdLastWeek();
+
+		tripService.updateTripPost(uid, request(), List.of());
+
+		assertEquals(LAST_WEEK, version(uid).getModifiedDate());
+	}
+
+	private String createdLastWeek() {
+		tripService.createTripPost(request(), List.of());
+		String uid = transactionTemplate.execute(status -> entityManager
+				.createQuery("SELECT tp.uid FROM TripPost tp ORDER BY tp.id DESC", String.class).setMaxResults(1)
+				.getSingleResult());
+		backdate(uid);
+		return uid;
+	}
+
+	private void backdate(String uid) {
+		transactionTemplate.executeWithoutResult(status -> entityManager
+				.createQuery("UPDATE TripPost tp SET tp.modifiedDate = :modifiedDate WHERE tp.uid = :uid")
+				.setParameter("modifiedDate", LAST_WEEK).setParameter("uid", uid).executeUpdate());
+	}
+
+	private TripPostVersion version(String uid) {
+		return tripPostRepository.findVersionByUid(uid).orElseThrow();
+	}
+
+	private int imageCount(String uid) {
+		return transactionTemplate.execute(status -> entityManager
+				.createQuery("SELECT tp FROM TripPost tp WHERE tp.uid = :uid", TripPost.class).setParameter("uid", uid)
+				.getSingleResult().getImages().size());
+	}
+
+	private static TripRequestDTO request() {
+		TripRequestDTO request = new TripRequestDTO();
+		request.setTitle("Spiti in winter");
+		request.setDescription("Ten days across the valley");
+		request.setDestination("Spiti");
+		request.setAmount(new BigDecimal("15000"));
+		request.setPostExpireDate(LocalDate.of(2026, 1, 1));
+		request.setTripStartingDate(LocalDate.of(2026, 1, 10));
+		request.setTripEndingDate(LocalDate.of(2026, 1, 20));
+		return request;
+	}
+
+	private static MockMultipartFile upload(String name, String content) {
+		return new MockMultipartFile("images", name, "image/jpeg", content.getBytes());
+	}
+}
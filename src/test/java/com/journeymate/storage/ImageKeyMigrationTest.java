@@ -0,0 +1,101 @@
+package com.journeymate.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.journeymate.model.trip.TripImage;
+import com.journeymate.model.user.User;
+import com.journeymate.repository.trip.TripImageRepository;
+import com.journeymate.repository.user.UserRepository;
+
+class ImageKeyMigrationTest {
+
+	private static final String UPLOAD_DIR = "/var/journeymate/uploads/";
+
+	private final TripImageRepository tripImageRepository = mock(TripImageRepository.class);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final List<String> migrated = new ArrayList<>();
+	private final InMemoryImageStore imageStore = new InMemoryImageStore() {
+		@Override
+		public void migrate(String key) throws IOException {
+			if (!exists(key)) {
+				throw new FileNotFoundException(key);
+			}
+			migrated.add(key);
+		}
+	};
+	private final ImageKeyMigration migration = new ImageKeyMigration(tripImageRepository, userRepository, imageStore,
+			new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(migration, "uploadDir", UPLOAD_DIR);
+		ReflectionTestUtils.setField(migration, "chunkSize", 2);
+	}
+
+	@Test
+	void tripImageRowsAreRewrittenOnceTheirFileHasMoved() {
+		imageStore.put("trips/a.jpg", new byte[1]);
+		imageStore.put("trips/c.jpg", new byte[1]);
+		when(tripImageRepository.findWithPrefixAfter(eq(0L), eq(UPLOAD_DIR), any()))
+				.thenReturn(List.of(tripImage(1L, "trips/a.jpg"), tripImage(2L, "trips/missing.jpg")));
+		when(tripImageRepository.findWithPrefixAfter(eq(2L), eq(UPLOAD_DIR), any()))
+				.thenReturn(List.of(tripImage(3L, "trips/c.jpg")));
+
+		migration.migrate();
+
+		assertEquals(List.of("trips/a.jpg", "trips/c.jpg"), migrated);
+		verify(tripImageRepository).updateImageUrl(1L, "trips/a.jpg");
+		verify(tripImageRepository).updateImageUrl(3L, "trips/c.jpg");
+		// left for the next run, which retries it
+		verify(tripImageRepository, never()).updateImageUrl(eq(2L), any());
+	}
+
+	@Test
+	void legacyProfileNamesBecomeKeysUnderProfiles() {
+		imageStore.put("profiles/face.jpg", new byte[1]);
+		imageStore.put("profiles/ab/cd/other.jpg", new byte[1]);
+		User legacy = user(1L, "face.jpg");
+		User current = user(2L, "profiles/ab/cd/other.jpg");
+		when(userRepository.findWithProfileImageAfter(eq(0L), any())).thenReturn(List.of(legacy, current));
+
+		migration.migrate();
+
+		assertEquals(List.of("profiles/face.jpg", "profiles/ab/cd/other.jpg"), migrated);
+		verify(userRepository).updateProfileImage(1L, "profiles/face.jpg");
+		verify(userRepository, never()).updateProfileImage(eq(2L), any());
+		verify(userRepository).findWithProfileImageAfter(eq(2L), any());
+		verify(tripImageRepository, never()).updateImageUrl(anyLong(), any());
+	}
+
+	private static TripImage tripImage(Long id, String key) {
+		TripImage image = new TripImage();
+		image.setId(id);
+		image.setImageUrl(UPLOAD_DIR + key);
+		return image;
+	}
+
+	private static User user(Long id, String profileImage) {
+		User user = new User();
+		user.setId(id);
+		user.setProfileImage(profileImage);
+		return user;
+	}
+}
@@ -0,0 +1,145 @@
+package com.journeymate.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import com.journeymate.utils.ImageVariant;
+
+/**
+ * {@link ImageStore} for tests that keeps every image in memory. Staging files are real
+ * temp files since uploads are streamed into them, but they are read back and deleted on put.
+ */
+public class InMemoryImageStore implements ImageStore {
+
+    private final Map<String, Entry> images = new ConcurrentSkipListMap<>();
+
+    @Override
+    public boolean exists(String key) {
+        return images.containsKey(key);
+    }
+
+    @Override
+    public Optional<Resource> get(String key) {
+        Entry entry = images.get(key);
+        return entry == null ? Optional.empty() : Optional.of(new EntryResource(entry));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return new ByteArrayInputStream(require(key).bytes);
+    }
+
+    @Override
+    public long lastModified(String key) throws IOException {
+        return require(key).lastModified;
+    }
+
+    @Override
+    public void touch(String key) throws IOException {
+        Entry entry = require(key);
+        images.put(key, new Entry(entry.bytes, System.currentTimeMillis()));
+    }
+
+    @Override
+    public Path createStagingFile() throws IOException {
+        return Files.createTempFile("image-store", ".tmp");
+    }
+
+    @Override
+    public boolean put(Path stagingFile, String key) throws IOException {
+        if (images.containsKey(key)) {
+            return false;
+        }
+        Entry entry = new Entry(Files.readAllBytes(stagingFile), System.currentTimeMillis());
+        if (images.putIfAbsent(key, entry) != null) {
+            return false;
+        }
+        Files.deleteIfExists(stagingFile);
+        return true;
+    }
+
+    /** Stores bytes directly, for setting up fixtures. */
+    public void put(String key, byte[] bytes) {
+        put(key, bytes, System.currentTimeMillis());
+    }
+
+    /** Stores bytes with a given modification time, for fixtures older than some cutoff. */
+    public void put(String key, byte[] bytes, long lastModified) {
+        images.put(key, new Entry(bytes, lastModified));
+    }
+
+    @Override
+    public boolean delete(String key) {
+        return images.remove(key) != null;
+    }
+
+    @Override
+    public List<String> listRelated(String key) {
+        String directory = key.substring(0, key.lastIndexOf('/') + 1);
+        String stem = stemOf(key.substring(directory.length()));
+        List<String> related = new ArrayList<>();
+        for (String candidate : images.keySet()) {
+            if (candidate.startsWith(directory) && candidate.indexOf('/', directory.length()) < 0
+                    && stemOf(candidate.substring(directory.length())).equals(stem)) {
+                related.add(candidate);
+            }
+        }
+        return related;
+    }
+
+    @Override
+    public void walk(Visitor visitor) {
+        images.forEach((key, entry) -> visitor.visit(key, entry.bytes.length, entry.lastModified));
+    }
+
+    public int size() {
+        return images.size();
+    }
+
+    private Entry require(String key) throws FileNotFoundException {
+        Entry entry = images.get(key);
+        if (entry == null) {
+            throw new FileNotFoundException(key);
+        }
+        return entry;
+    }
+
+    private static String stemOf(String name) {
+        String stem = ImageVariant.variantStem(name);
+        if (stem != null) {
+            return stem;
+        }
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private record Entry(byte[] bytes, long lastModified) {
+    }
+
+    private static class EntryResource extends ByteArrayResource {
+
+        private final long lastModified;
+
+        EntryResource(Entry entry) {
+            super(entry.bytes);
+            this.lastModified = entry.lastModified;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.journeymate.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalFileSystemImageStoreTest {
+
+	@TempDir
+	Path root;
+
+	private FileChannelCache channelCache;
+	private LocalFileSystemImageStore imageStore;
+
+	@BeforeEach
+	void setUp() {
+		channelCache = new FileChannelCache(4);
+		imageStore = new LocalFileSystemImageStore(root.toString(), channelCache);
+	}
+
+	@AfterEach
+	void tearDown() {
+		channelCache.closeAll();
+	}
+
+	@Test
+	void putShardsTheKeyTwoLevelsDeepAndWalkReportsTheKey() throws IOException {
+		put("trips/spiti.jpg", "original");
+
+		Path file = imageStore.localPath("trips/spiti.jpg").orElseThrow();
+		Path relative = root.relativize(file);
+		assertEquals(4, relative.getNameCount());
+		assertEquals("trips", relative.getName(0).toString());
+		assertTrue(relative.getName(1).toString().matches("[0-9a-f]{2}"));
+		assertTrue(relative.getName(2).toString().matches("[0-9a-f]{2}"));
+		assertEquals(List.of("trips/spiti.jpg"), walk());
+	}
+
+	@Test
+	void variantsShareTheirOriginalsShard() throws IOException {
+		put("trips/spiti.jpg", "original");
+		put("trips/spiti-thumb.jpg", "thumbnail");
+		put("trips/spiti2.jpg", "another post");
+
+		Path original = imageStore.localPath("trips/spiti.jpg").orElseThrow();
+		assertEquals(original.getParent(), imageStore.localPath("trips/spiti-thumb.jpg").orElseThrow().getParent());
+		List<String> related = imageStore.listRelated("trips/spiti-thumb.jpg");
+		related.sort(null);
+		assertEquals(List.of("trips/spiti-thumb.jpg", "trips/spiti.jpg"), related);
+	}
+
+	@Test
+	void putRefusesATakenKey() throws IOException {
+		put("cas/abc.jpg", "first");
+		Path staged = imageStore.createStagingFile();
+		Files.writeString(staged, "second");
+
+		assertFalse(imageStore.put(staged, "cas/abc.jpg"));
+		assertTrue(Files.exists(staged));
+		try (InputStream in = imageStore.open("cas/abc.jpg")) {
+			assertEquals("first", new String(in.readAllBytes()));
+		}
+	}
+
+	@Test
+	void legacyFilesAreFoundUntilMigratedWithTheirVariants() throws IOException {
+		Files.createDirectories(root.resolve("profiles"));
+		Files.writeString(root.resolve("profiles/face.jpg"), "original");
+		Files.writeString(root.resolve("profiles/face-thumb.jpg"), "thumbnail");
+
+		assertTrue(imageStore.exists("profiles/face.jpg"));
+		assertEquals(root.resolve("profiles/face.jpg"), imageStore.localPath("profiles/face.jpg").orElseThrow());
+
+		imageStore.migrate("profiles/face.jpg");
+
+		assertFalse(Files.exists(root.resolve("profiles/face.jpg")));
+		assertFalse(Files.exists(root.resolve("profiles/face-thumb.jpg")));
+		assertEquals(4, root.relativize(imageStore.localPath("profiles/face.jpg").orElseThrow()).getNameCount());
+		assertTrue(imageStore.exists("profiles/face-thumb.jpg"));
+		List<String> keys = walk();
+		keys.sort(null);
+		assertEquals(List.of("profiles/face-thumb.jpg", "profiles/face.jpg"), keys);
+	}
+
+	@Test
+	void deleteRemovesTheShardedFile() throws IOException {
+		put("trips/spiti.jpg", "original");
+
+		assertTrue(imageStore.delete("trips/spiti.jpg"));
+		assertFalse(imageStore.exists("trips/spiti.jpg"));
+		assertFalse(imageStore.delete("trips/spiti.jpg"));
+	}
+
+	@Test
+	void keysEscapingTheRootAreRejected() throws IOException {
+		assertFalse(imageStore.exists("../outside.jpg"));
+		assertTrue(imageStore.get("trips/../../outside.jpg").isEmpty());
+		Path staged = imageStore.createStagingFile();
+		assertThrows(IllegalArgumentException.class, () -> imageStore.put(staged, "/etc/passwd"));
+	}
+
+	private void put(String key, String content) throws IOException {
+		Path staged = imageStore.createStagingFile();
+		Files.writeString(staged, content);
+		assertTrue(imageStore.put(staged, key));
+		assertFalse(Files.exists(staged));
+	}
+
+	private List<String> walk() throws IOException {
+		List<String> keys = new ArrayList<>();
+		imageStore.walk((key, size, lastModified) -> {
+			if (!key.startsWith(ImageStore.STAGING_PREFIX)) {
+				keys.add(key);
+			}
+		});
+		return keys;
+	}
+}
@@ -0,0 +1,38 @@
+package com.journeymate.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.journeymate.exception.ValidationException;
+
+class KeysetCursorTest {
+
+	@Test
+	void keysetCursorRoundTrips() {
+		LocalDateTime createdDate = LocalDateTime.of(2025, 3, 10, 12, 30, 15);
+		KeysetCursor cursor = KeysetCursor.decode(new KeysetCursor(createdDate, 42L).encode());
+
+		assertEquals(createdDate, cursor.getTimestamp());
+		assertEquals(42L, cursor.getId());
+	}
+
+	@Test
+	void idCursorRoundTripsWithoutShowingTheId() {
+		String cursor = KeysetCursor.encodeId(2991L);
+
+		assertFalse(cursor.contains("2991"));
+		assertEquals(2991L, KeysetCursor.decodeId(cursor));
+	}
+
+	@Test
+	void malformedCursorsAreRejected() {
+		assertThrows(ValidationException.class, () -> KeysetCursor.decodeId("2991"));
+		assertThrows(ValidationException.class, () -> KeysetCursor.decodeId("not base64!"));
+		assertThrows(ValidationException.class, () -> KeysetCursor.decode(KeysetCursor.encodeId(2991L)));
+	}
+}